@@ -0,0 +1,160 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * JMH benchmarks for the Graph operations of ConcreteEdgesGraph,
+ * ConcreteVerticesGraph and OffHeapGraph, and for Graphs.twoHop() over
+ * them, on random graphs of several sizes and densities.
+ * 
+ * <p>Each graph has {@code size} vertices and about
+ * {@code size * degree} edges, with sources and targets chosen uniformly
+ * at random from a fixed seed. Operations cycle through the vertices and
+ * edges so that no single entry stays hot in the cache.
+ * 
+ * <p>The mutators are measured in pairs that leave the graph as they found
+ * it, so every invocation sees the same graph: set() of an existing edge
+ * with the set() that restores its weight, add() with remove() of an
+ * isolated vertex, and remove() of a connected vertex with the set() calls
+ * that restore its edges.
+ * 
+ * <p>JMH forks without assertions, so checkRep() is not part of the
+ * numbers. See {@code poet.GraphPoetBenchmark} for how to run.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GraphBenchmark {
+    
+    @Param({"edges", "vertices", "offheap"})
+    public String impl;
+    
+    @Param({"1000", "100000"})
+    public int size;
+    
+    @Param({"2", "16"})
+    public int degree;
+    
+    private Graph<String> graph;
+    private String[] labels;
+    private String[] edgeSources;
+    private String[] edgeTargets;
+    private int nextVertex;
+    private int nextEdge;
+    
+    /**
+     * Build the random graph for this combination of parameters.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+    	graph = impl.equals("edges") ? new ConcreteEdgesGraph<String>()
+    			: impl.equals("offheap") ? new OffHeapGraph<String>()
+    			: new ConcreteVerticesGraph<String>();
+    	labels = new String[size];
+    	for (int i = 0; i < size; i++) {
+    		labels[i] = "v" + i;
+    		graph.add(labels[i]);
+    	}
+    
+    	Random random = new Random(6005);
+    	List<String> sources = new ArrayList<>(), targets = new ArrayList<>();
+    	for (long i = 0; i < (long) size * degree; i++) {
+    		String s = labels[random.nextInt(size)], t = labels[random.nextInt(size)];
+    		if (!s.equals(t) && graph.set(s, t, 1 + random.nextInt(100)) == 0) {
+    			sources.add(s);
+    			targets.add(t);
+    		}
+    	}
+    	edgeSources = sources.toArray(new String[0]);
+    	edgeTargets = targets.toArray(new String[0]);
+    }
+    
+    private String nextVertex() {
+    	String label = labels[nextVertex];
+    	nextVertex = (nextVertex + 1) % labels.length;
+    	return label;
+    }
+    
+    @Benchmark
+    public Object vertices() {
+    	return graph.vertices();
+    }
+    
+    @Benchmark
+    public Object sources() {
+    	return graph.sources(nextVertex());
+    }
+    
+    @Benchmark
+    public Object targets() {
+    	return graph.targets(nextVertex());
+    }
+    
+    @Benchmark
+    public Object twoHop() {
+    	return Graphs.twoHop(graph, nextVertex(), nextVertex());
+    }
+    
+    /**
+     * Change the weight of an existing edge, then change it back.
+     */
+    @Benchmark
+    public int set() {
+    	int i = nextEdge;
+    	nextEdge = (nextEdge + 1) % edgeSources.length;
+    	int previous = graph.set(edgeSources[i], edgeTargets[i], 1);
+    	graph.set(edgeSources[i], edgeTargets[i], previous);
+    	return previous;
+    }
+    
+    /**
+     * Add a new isolated vertex, then remove it again.
+     */
+    @Benchmark
+    public boolean addIsolated() {
+    	boolean added = graph.add("new");
+    	graph.remove("new");
+    	return added;
+    }
+    
+    /**
+     * Remove a connected vertex, then restore it and its edges.
+     */
+    @Benchmark
+    public void removeConnected(Blackhole blackhole) {
+    	String label = nextVertex();
+    	Map<String, Integer> sources = graph.sources(label);
+    	Map<String, Integer> targets = graph.targets(label);
+    	blackhole.consume(graph.remove(label));
+    	graph.add(label);
+    	for (Map.Entry<String, Integer> e: sources.entrySet())
+    		graph.set(e.getKey(), label, e.getValue());
+    	for (Map.Entry<String, Integer> e: targets.entrySet())
+    		graph.set(label, e.getKey(), e.getValue());
+    }
+    
+}
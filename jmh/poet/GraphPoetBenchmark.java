@@ -0,0 +1,97 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks for GraphPoet: building a poet from shakespeare.txt, and
+ * writing one poem or a batch of poems with and without the bridge word
+ * cache.
+ * 
+ * <p>The jmh folder is not on the Eclipse build path, since it needs JMH,
+ * which the project does not ship. Set JMH_CP to the jars of jmh-core,
+ * jmh-generator-annprocess, jopt-simple and commons-math3; the annotation
+ * processor is picked up from that classpath. Run from the project root,
+ * for example:
+ * <pre>
+ * javac -cp $JMH_CP -d bin $(find src jmh -name '*.java')
+ * java -cp bin:$JMH_CP org.openjdk.jmh.Main
+ * java -cp bin:$JMH_CP org.openjdk.jmh.Main GraphBenchmark.sources -p size=1000
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GraphPoetBenchmark {
+    
+    private static final File CORPUS = new File("src/poet/shakespeare.txt");
+    private static final String INPUT =
+    		"I would like to show you something I found earlier - "
+    		+ "I really like it and I love to be lost in the sound of thy voice";
+    private static final List<String> BATCH = Collections.nCopies(1024, INPUT);
+    
+    @Param({"0", "65536"})
+    public int bridgeCacheSize;
+    
+    private GraphPoet poet;
+    
+    /**
+     * Build the poet whose poem() is measured.
+     * @throws IOException if the corpus cannot be read
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+    	poet = new GraphPoet(CORPUS, bridgeCacheSize);
+    }
+    
+    /**
+     * Build a poet from the corpus file.
+     * @throws IOException if the corpus cannot be read
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public GraphPoet construct() throws IOException {
+    	return new GraphPoet(CORPUS, bridgeCacheSize);
+    }
+    
+    /**
+     * Write a poem from a fixed input.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public String poem() {
+    	return poet.poem(INPUT);
+    }
+    
+    /**
+     * Write a batch of poems in parallel on the common fork-join pool.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<String> poemsBatch() {
+    	return poet.poems(BATCH, ForkJoinPool.commonPool());
+    }
+    
+}
@@ -0,0 +1,99 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * JMH benchmarks comparing WordScanner with splitting on the regex
+ * {@code \s+}, for a poem input and for the whole of shakespeare.txt.
+ * Each benchmark consumes every word in lower case, as poem() and corpus
+ * ingestion do; scanIndices consumes only the bounds of each word.
+ * 
+ * <p>Run from the project root as described for GraphPoetBenchmark, for
+ * example:
+ * <pre>
+ * java -cp bin:$JMH_CP org.openjdk.jmh.Main TokenizerBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TokenizerBenchmark {
+    
+    private static final String INPUT =
+    		"I would like to show you something I found earlier - "
+    		+ "I really like it and I love to be lost in the sound of thy voice";
+    
+    @Param({"input", "corpus"})
+    public String text;
+    
+    private String chars;
+    private final WordScanner scanner = new WordScanner();
+    
+    /**
+     * Load the text to tokenize.
+     * @throws IOException if the corpus cannot be read
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+    	chars = text.equals("input") ? INPUT : new String(
+    			Files.readAllBytes(Paths.get("src/poet/shakespeare.txt")),
+    			StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Split with String.split() and lower-case each word.
+     * @param blackhole consumer of the words
+     */
+    @Benchmark
+    public void regexSplit(Blackhole blackhole) {
+    	for (String word: chars.split("\\s+"))
+    		blackhole.consume(word.toLowerCase());
+    }
+    
+    /**
+     * Scan with a reused WordScanner and lower-case each word.
+     * @param blackhole consumer of the words
+     */
+    @Benchmark
+    public void scan(Blackhole blackhole) {
+    	scanner.reset(chars);
+    	while (scanner.next())
+    		blackhole.consume(scanner.lowerCaseWord());
+    }
+    
+    /**
+     * Scan with a reused WordScanner, without creating word strings.
+     * @param blackhole consumer of the word bounds
+     */
+    @Benchmark
+    public void scanIndices(Blackhole blackhole) {
+    	scanner.reset(chars);
+    	while (scanner.next())
+    		blackhole.consume(scanner.end() - scanner.start());
+    }
+    
+}
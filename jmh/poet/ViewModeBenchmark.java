@@ -0,0 +1,77 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import graph.ViewMode;
+
+/**
+ * JMH benchmark comparing GraphPoet.poem() when the affinity graph returns
+ * copies (ViewMode.COPY) against read-only views (ViewMode.VIEW), and
+ * against a frozen snapshot of the graph (FROZEN).
+ * The bridge word cache is disabled so that every poem searches the graph.
+ * 
+ * <p>The point of the comparison is the garbage each poem produces, so run
+ * it with the GC profiler and read gc.alloc.rate.norm, the bytes allocated
+ * per poem. Run from the project root as described for GraphPoetBenchmark,
+ * for example:
+ * <pre>
+ * java -cp bin:$JMH_CP org.openjdk.jmh.Main ViewModeBenchmark -prof gc
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ViewModeBenchmark {
+    
+    private static final File CORPUS = new File("src/poet/shakespeare.txt");
+    private static final String INPUT =
+    		"I would like to show you something I found earlier - "
+    		+ "I really like it and I love to be lost in the sound of thy voice";
+    
+    @Param({"COPY", "VIEW", "FROZEN"})
+    public String graph;
+    
+    private GraphPoet poet;
+    
+    /**
+     * Build the poet whose poem() is measured.
+     * @throws IOException if the corpus cannot be read
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+    	GraphPoet.Builder builder = GraphPoet.builder().bridgeCacheSize(0);
+    	if (!graph.equals("FROZEN"))
+    		builder.viewMode(ViewMode.valueOf(graph)).frozen(false);
+    	poet = builder.build(CORPUS);
+    }
+    
+    /**
+     * Write a poem from a fixed input.
+     */
+    @Benchmark
+    public String poem() {
+    	return poet.poem(INPUT);
+    }
+    
+}
@@ -3,12 +3,12 @@
  */
 package graph;
 
-import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
-import java.util.HashMap;
 import java.util.Set;
+import java.util.function.Function;
 import java.lang.StringBuilder;
 /**
  * An implementation of Graph.
@@ -18,79 +18,185 @@ import java.lang.StringBuilder;
 public class ConcreteEdgesGraph<L> implements Graph<L> {
     
     private final Set<L> vertices = new HashSet<>();
-    private final List<Edge<L>> edges = new ArrayList<>();
+    
+    // Edge index: source -> (target -> weight), and the reverse
+    // target -> (source -> weight). Only vertices with at least one
+    // outgoing (resp. incoming) edge have an entry.
+    private final Map<L, Map<L, Integer>> outEdges = new HashMap<>();
+    private final Map<L, Map<L, Integer>> inEdges = new HashMap<>();
+    private int edgeCount = 0;
+    
+    private final ViewMode viewMode;
+    private final Set<L> verticesView = Collections.unmodifiableSet(vertices);
+    private final RepValidator validator;
     
     // Abstraction function:
     //   AF(r) = an ordered pair (V,E)
     // 		where V = { all v in r.vertices }
-    //		and E = { (e.getSource(), e.getTarget()) for all e in r.edges }
-    //		and there exists a W such that W(e) = e.getWeight() for all e in E.   
+    //		and E = { (s, t) for all s in r.outEdges, t in r.outEdges[s] }
+    //		and there exists a W such that W(s, t) = r.outEdges[s][t] for all (s, t) in E.   
 
     // Representation invariant:
     //  - Any graph with v vertices will have at most v(v-1) edges
-    //  - for all e in edges, vertices contains e.source and e.target
+    //  - for all (s, t) in outEdges, vertices contains s and t, s != t
+    //    and the weight is > 0
+    //  - inEdges is exactly the transpose of outEdges
+    //  - no inner map in outEdges or inEdges is empty
+    //  - edgeCount is the total number of (s, t) pairs in outEdges
     // Safety from rep exposure:
-    //  - set() puts all params into immutable Edge instances
-    //  - vertices(), sources(), targets() return copies
+    //  - weights are immutable Integers
+    //  - vertices(), sources(), targets() return copies, or unmodifiable
+    //    views in ViewMode.VIEW
+    
+    /**
+     * Create an empty graph whose observers return copies.
+     */
+    public ConcreteEdgesGraph() {
+    	this(ViewMode.COPY);
+    }
     
-    // Default constructor will be fine here
+    /**
+     * Create an empty graph which checks its whole rep on every operation
+     * when assertions are enabled.
+     * @param viewMode how vertices(), sources() and targets() return results
+     */
+    public ConcreteEdgesGraph(ViewMode viewMode) {
+    	this(viewMode, ValidationMode.FULL);
+    }
+    
+    /**
+     * Create an empty graph.
+     * @param viewMode how vertices(), sources() and targets() return results
+     * @param validation how much of the rep is checked when assertions are
+     *        enabled
+     */
+    public ConcreteEdgesGraph(ViewMode viewMode, ValidationMode validation) {
+    	this.viewMode = viewMode;
+    	this.validator = new RepValidator(validation);
+    }
     
     /**
      * Looks for an edge in the graph.
-     * @param source string of the desired edge's source
-     * @param target string of the desired edge's target
-     * @return the index of the edge, or -1 if not found
+     * @param source label of the desired edge's source
+     * @param target label of the desired edge's target
+     * @return the weight of the edge, or 0 if not found
      */
     private int findEdge(L source, L target) {
-    	assert checkRep();
-    	for (int i = 0; i < edges.size(); ++i) {
-    		Edge<L> e = edges.get(i);
-    		if (e.getSource().equals(source) && e.getTarget().equals(target))
-    			return i;
-    	}
-    	return -1;
+    	Map<L, Integer> targets = outEdges.get(source);
+    	if (targets == null)
+    		return 0;
+    	Integer weight = targets.get(target);
+    	return weight == null ? 0 : weight;
     }
     
     /*
      * Representation invariant:
      * - any graph with v vertices will have no more than v(v-1) edges
      * - the source and target of every edge is in vertices
+     * - the reverse index mirrors the forward index
      */
     public boolean checkRep() {
     	boolean edgeCheck = 
-    			edges.size() <= vertices.size() * (vertices.size() - 1);
-    	boolean vertexCheck = true;
-    	for (Edge<L> e: edges) {
-    		vertexCheck = vertices.contains(e.getSource()) 
-    				&& vertices.contains(e.getTarget());
+    			edgeCount <= (long) vertices.size() * (vertices.size() - 1);
+    	int nEdges = 0;
+    	for (Map.Entry<L, Map<L, Integer>> out: outEdges.entrySet()) {
+    		L source = out.getKey();
+    		if (!vertices.contains(source) || out.getValue().isEmpty())
+    			return false;
+    		for (Map.Entry<L, Integer> e: out.getValue().entrySet()) {
+    			L target = e.getKey();
+    			if (!vertices.contains(target) || source.equals(target)
+    					|| e.getValue() <= 0)
+    				return false;
+    			Map<L, Integer> reverse = inEdges.get(target);
+    			if (reverse == null || !e.getValue().equals(reverse.get(source)))
+    				return false;
+    			++nEdges;
+    		}
     	}
-    	return edgeCheck && vertexCheck;
-    			
+    	int nReverse = 0;
+    	for (Map<L, Integer> in: inEdges.values())
+    		nReverse += in.size();
+    	return edgeCheck && nEdges == edgeCount && nReverse == edgeCount;
+    }
+    
+    /**
+     * Check the rep at the start of an operation, as much as the
+     * validation mode requires.
+     * @return false if a check found the rep invariant broken
+     */
+    private boolean validate() {
+    	return !validator.fullCheckDue(vertices.size() + (long) edgeCount) || checkRep();
+    }
+    
+    /**
+     * Check the rep invariant where it concerns one vertex: its entries in
+     * both edge indexes, and the other ends of those edges. Takes time
+     * proportional to the degree of vertex.
+     * @return true iff no violation was found
+     */
+    private boolean checkVertex(L vertex) {
+    	Map<L, Integer> out = outEdges.get(vertex);
+    	Map<L, Integer> in = inEdges.get(vertex);
+    	if (edgeCount < 0)
+    		return false;
+    	if (!vertices.contains(vertex))
+    		return out == null && in == null;
+    	if (out != null) {
+    		if (out.isEmpty())
+    			return false;
+    		for (Map.Entry<L, Integer> e: out.entrySet()) {
+    			Map<L, Integer> reverse = inEdges.get(e.getKey());
+    			if (!vertices.contains(e.getKey()) || vertex.equals(e.getKey())
+    					|| e.getValue() <= 0 || reverse == null
+    					|| !e.getValue().equals(reverse.get(vertex)))
+    				return false;
+    		}
+    	}
+    	if (in != null) {
+    		if (in.isEmpty())
+    			return false;
+    		for (Map.Entry<L, Integer> e: in.entrySet()) {
+    			Map<L, Integer> forward = outEdges.get(e.getKey());
+    			if (!vertices.contains(e.getKey()) || forward == null
+    					|| !e.getValue().equals(forward.get(vertex)))
+    				return false;
+    		}
+    	}
+    	return true;
     }
     
     @Override public boolean add(L vertex) {
-    	assert checkRep();
+    	assert validate();
     	if (vertices.contains(vertex))
     		return false;
         vertices.add(vertex);
+        assert !validator.incremental() || checkVertex(vertex);
         return true;
     }
     
     @Override public int set(L source, L target, int weight) {
-    	assert checkRep();
-    	int edgeIx = findEdge(source, target);
-    	if (edgeIx != -1) {
-    		int oldWeight = edges.get(edgeIx).getWeight();
+    	assert validate();
+    	int oldWeight = findEdge(source, target);
+    	if (oldWeight != 0) {
     		// Edge exists. Update it in-place
-    		if (weight == 0)
-    			edges.remove(edgeIx);
-    		else
-    			edges.set(edgeIx, new Edge<L>(source, target, weight));
+    		if (weight == 0) {
+    			removeEdge(source, target);
+    		} else {
+    			checkEdge(source, target, weight);
+    			putEdge(source, target, weight);
+    		}
+    		assert !validator.incremental() || checkVertex(source) && checkVertex(target);
     		return oldWeight;
     	}
     	if (weight > 0) {
     		// No such edge; create new entry & return 0
-    		edges.add(new Edge<L>(source, target, weight));
+    		checkEdge(source, target, weight);
+    		vertices.add(source);
+    		vertices.add(target);
+    		putEdge(source, target, weight);
+    		++edgeCount;
+    		assert !validator.incremental() || checkVertex(source) && checkVertex(target);
     		return 0;
     	}
     	// No such edge, and weight was 0: nothing to do
@@ -98,70 +204,158 @@ public class ConcreteEdgesGraph<L> implements Graph<L> {
     }
     
     @Override public void set(L source, L target) {
-    	assert checkRep();
-    	int edgeIx = findEdge(source, target);
-    	if (edgeIx == -1)
-    		set(source, target, 1);
-    	else
-    		set(source, target, edges.get(edgeIx).getWeight() + 1);
-    	
+    	set(source, target, findEdge(source, target) + 1);
+    }
+    
+    /**
+     * Check that an edge could be stored in this graph, with the same
+     * requirements as an Edge instance.
+     * @throws IllegalArgumentException if weight <= 0 or source == target
+     */
+    private static <L> void checkEdge(L source, L target, int weight)
+    		throws IllegalArgumentException {
+    	if (weight <= 0)
+    		throw new IllegalArgumentException("Requires weight > 0");
+    	if (source.equals(target))
+    		throw new IllegalArgumentException("Requires source != target");
+    }
+    
+    /**
+     * Write an edge weight into both the forward and reverse index.
+     * Does not adjust edgeCount.
+     */
+    private void putEdge(L source, L target, int weight) {
+    	outEdges.computeIfAbsent(source, s -> new HashMap<>()).put(target, weight);
+    	inEdges.computeIfAbsent(target, t -> new HashMap<>()).put(source, weight);
+    }
+    
+    /**
+     * Remove an existing edge from both the forward and reverse index,
+     * dropping inner maps that become empty.
+     */
+    private void removeEdge(L source, L target) {
+    	Map<L, Integer> targets = outEdges.get(source);
+    	targets.remove(target);
+    	if (targets.isEmpty())
+    		outEdges.remove(source);
+    	Map<L, Integer> sources = inEdges.get(target);
+    	sources.remove(source);
+    	if (sources.isEmpty())
+    		inEdges.remove(target);
+    	--edgeCount;
     }
     
     @Override public boolean remove(L vertex) {
-    	assert checkRep();
+    	assert validate();
     	if (!vertices.contains(vertex))
     		return false;
     	vertices.remove(vertex);
-    	// Backwards iteration avoids skipping elements
-    	// when we delete one
-    	for (int i = edges.size() - 1; i >= 0; --i) {
-    		Edge<L> e = edges.get(i);
-    		if (e.getSource().equals(vertex) || e.getTarget().equals(vertex))
-    			edges.remove(i);
+    	// Only the edges incident to vertex need to be visited
+    	Map<L, Integer> targets = outEdges.remove(vertex);
+    	if (targets != null) {
+    		for (L target: targets.keySet()) {
+    			Map<L, Integer> sources = inEdges.get(target);
+    			sources.remove(vertex);
+    			if (sources.isEmpty())
+    				inEdges.remove(target);
+    		}
+    		edgeCount -= targets.size();
+    	}
+    	Map<L, Integer> sources = inEdges.remove(vertex);
+    	if (sources != null) {
+    		for (L source: sources.keySet()) {
+    			Map<L, Integer> outs = outEdges.get(source);
+    			outs.remove(vertex);
+    			if (outs.isEmpty())
+    				outEdges.remove(source);
+    		}
+    		edgeCount -= sources.size();
     	}
+    	assert !validator.incremental() || checkRemoved(vertex, targets, sources);
+    	return true;
+    }
+    
+    /**
+     * Check that a removed vertex is gone from the rep, including from the
+     * edge indexes of its former neighbours.
+     * @param targets former targets of vertex, or null if there were none
+     * @param sources former sources of vertex, or null if there were none
+     * @return true iff no violation was found
+     */
+    private boolean checkRemoved(L vertex, Map<L, Integer> targets,
+    		Map<L, Integer> sources) {
+    	if (!checkVertex(vertex))
+    		return false;
+    	if (targets != null)
+    		for (L target: targets.keySet()) {
+    			Map<L, Integer> in = inEdges.get(target);
+    			if (in != null && in.containsKey(vertex))
+    				return false;
+    		}
+    	if (sources != null)
+    		for (L source: sources.keySet()) {
+    			Map<L, Integer> out = outEdges.get(source);
+    			if (out != null && out.containsKey(vertex))
+    				return false;
+    		}
     	return true;
     }
     
     @Override public Set<L> vertices() {
-        assert checkRep();
+        assert validate();
+        if (viewMode == ViewMode.VIEW)
+        	return verticesView;
     	return new HashSet<>(vertices);
     }
     
     @Override public Map<L, Integer> sources(L target) {
-        assert checkRep();
-    	Map<L, Integer> sources = new HashMap<>();
-        edges.forEach(e -> {
-        	if (e.getTarget().equals(target)) 
-        		sources.put(e.getSource(), e.getWeight());
-        });
-        return sources;
+        assert validate();
+        return adjacency(inEdges.get(target));
     }
     
     @Override public Map<L, Integer> targets(L source) {
-        assert checkRep();
-    	Map<L, Integer> targets = new HashMap<>();
-        edges.forEach(e -> {
-        	if (e.getSource().equals(source))
-        		targets.put(e.getTarget(), e.getWeight());
-        });
-        return targets;
+        assert validate();
+        return adjacency(outEdges.get(source));
+    }
+    
+    /**
+     * Return one side of the edge index in the form required by viewMode.
+     * @param edges an inner map of outEdges or inEdges, or null if absent
+     */
+    private Map<L, Integer> adjacency(Map<L, Integer> edges) {
+    	if (viewMode == ViewMode.VIEW)
+    		return edges == null ? Collections.emptyMap()
+    				: Collections.unmodifiableMap(edges);
+    	return edges == null ? new HashMap<>() : new HashMap<>(edges);
+    }
+    
+    /**
+     * Find the two-edge paths from source to target, as specified by
+     * Graphs.twoHop(), by intersecting the inner maps of outEdges and
+     * inEdges without copying them.
+     */
+    Map<L, Integer> twoHop(L source, L target) {
+    	assert validate();
+    	return Graphs.intersect(outEdges.get(source), inEdges.get(target),
+    			Function.identity());
     }
     
     @Override public String toString() {
-    	assert checkRep();
+    	assert validate();
     	StringBuilder sb = new StringBuilder("ConcreteEdgesGraph:");
     	sb.append("vertices={");
     	vertices.forEach((v) -> sb.append(v + ","));
     	sb.append("} edges={");
-    	edges.forEach((e) -> sb.append(e + ","));
+    	outEdges.forEach((s, targets) -> targets.forEach(
+    			(t, w) -> sb.append(new Edge<L>(s, t, w) + ",")));
     	return sb.append("}").toString();
     }
     
 }
 
 /**
- * Immutable data class internal to the rep of ConcreteEdgesGraph which
- * describes an edge within the graph. 
+ * Immutable data class used by ConcreteEdgesGraph to describe an edge
+ * within the graph. 
  */
 class Edge<L> {
     
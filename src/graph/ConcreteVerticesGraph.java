@@ -3,9 +3,14 @@
  */
 package graph;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -17,41 +22,119 @@ import java.util.Set;
  */
 public class ConcreteVerticesGraph<L> implements Graph<L> {
     
-    private final List<Vertex<L>> vertices = new ArrayList<>();
+    // Indexed by label; insertion-ordered so toString() stays stable
+    private final Map<L, Vertex<L>> vertices = new LinkedHashMap<>();
+    
+    private final ViewMode viewMode;
+    private final Set<L> verticesView = Collections.unmodifiableSet(vertices.keySet());
+    private final RepValidator validator;
+    private int edgeCount = 0;
     
     // Abstraction function:
     //   AF(r) = an ordered pair (V, E)
-    //		where V = { all v in r.vertices }
+    //		where V = { all v in r.vertices.values() }
     //      and E = { (v, v') for all (v,v') pair in r.vertices where v.hasEdgeTo(v') }
     //		and there exists a W such that W(v, v') = v.getEdgeTo(v') for all (v, v') in E.
     // Representation invariant:
     //   - Any graph with v vertices will have at most v(v-1) edges
+    //   - edgeCount is the number of edges out of all vertices
+    //   - vertices.get(l).getName().equals(l) for every key l
+    //   - every vertex satisfies the Vertex rep invariant, and its edges
+    //     lead to and from vertices in this graph only
     // Safety from rep exposure:
     //   - mutable Vertex class is never exposed in public methods
     //   - non-primitive types aren't returned by reference where
-    //     callers could mutate the rep
+    //     callers could mutate the rep; in ViewMode.VIEW they are only
+    //     returned behind unmodifiable views
+    
+    /**
+     * Create an empty graph whose observers return copies.
+     */
+    public ConcreteVerticesGraph() {
+    	this(ViewMode.COPY);
+    }
     
-    // Default constructor will be fine here
+    /**
+     * Create an empty graph which checks its whole rep on every operation
+     * when assertions are enabled.
+     * @param viewMode how vertices(), sources() and targets() return results
+     */
+    public ConcreteVerticesGraph(ViewMode viewMode) {
+    	this(viewMode, ValidationMode.FULL);
+    }
+    
+    /**
+     * Create an empty graph.
+     * @param viewMode how vertices(), sources() and targets() return results
+     * @param validation how much of the rep is checked when assertions are
+     *        enabled
+     */
+    public ConcreteVerticesGraph(ViewMode viewMode, ValidationMode validation) {
+    	this.viewMode = viewMode;
+    	this.validator = new RepValidator(validation);
+    }
     
     private boolean checkRep() {
-    	int nEdges = 0;
-    	for(Vertex<L> v: vertices)
-    		nEdges += v.getOutwardEdges().size();
-    	return nEdges <= vertices.size() * (vertices.size() - 1);
+    	long nEdges = 0;
+    	for (Map.Entry<L, Vertex<L>> e: vertices.entrySet()) {
+    		if (!e.getValue().getName().equals(e.getKey()) || !checkVertex(e.getValue()))
+    			return false;
+    		nEdges += e.getValue().outwardEdgesView().size();
+    	}
+    	return nEdges == edgeCount
+    			&& nEdges <= (long) vertices.size() * (vertices.size() - 1);
+    }
+    
+    /**
+     * Check the rep at the start of an operation, as much as the
+     * validation mode requires.
+     * @return false if a check found the rep invariant broken
+     */
+    private boolean validate() {
+    	return !validator.fullCheckDue(vertices.size() + (long) edgeCount) || checkRep();
+    }
+    
+    /**
+     * Check the rep invariant where it concerns one vertex of this graph:
+     * the vertex itself, and that the other ends of its edges are in this
+     * graph. Takes time proportional to the degree of v.
+     * @return true iff no violation was found
+     */
+    private boolean checkVertex(Vertex<L> v) {
+    	if (vertices.get(v.getName()) != v || !v.checkRep())
+    		return false;
+    	for (Vertex<L> t: v.outwardEdgesView().keySet())
+    		if (vertices.get(t.getName()) != t)
+    			return false;
+    	for (Vertex<L> s: v.inwardEdgesView().keySet())
+    		if (vertices.get(s.getName()) != s)
+    			return false;
+    	return true;
+    }
+    
+    /**
+     * Check that a removed vertex is gone from the rep, including from the
+     * edge maps of its former neighbours.
+     * @param v the removed vertex
+     * @param neighbours former sources and targets of v
+     * @return true iff no violation was found
+     */
+    private boolean checkRemoved(Vertex<L> v, Set<Vertex<L>> neighbours) {
+    	if (vertices.get(v.getName()) == v || edgeCount < 0
+    			|| !v.outwardEdgesView().isEmpty() || !v.inwardEdgesView().isEmpty())
+    		return false;
+    	for (Vertex<L> n: neighbours)
+    		if (n != v && (n.outwardEdgesView().containsKey(v)
+    				|| n.inwardEdgesView().containsKey(v) || !checkVertex(n)))
+    			return false;
+    	return true;
     }
     
     private Vertex<L> getVertexByName(L name) {
-    	assert checkRep();
-    	for (Vertex<L> v: vertices) {
-    		if (v.getName().equals(name))
-    			return v;
-    	}
-    	
-    	return null;
+    	return vertices.get(name);
     }
     
     private Vertex<L> ensureVertexByName(L name) {
-    	assert checkRep();
     	Vertex<L> v = getVertexByName(name);
     	if (v == null) v = createVertex(name);
     	return v;
@@ -59,85 +142,126 @@ public class ConcreteVerticesGraph<L> implements Graph<L> {
     
     private Vertex<L> createVertex(L name) {
     	Vertex<L> v = new Vertex<L>(name);
-    	vertices.add(v);
+    	vertices.put(name, v);
     	return v;
     }
     
     @Override public boolean add(L vertex) {
-    	assert checkRep();
+    	assert validate();
     	if (getVertexByName(vertex) != null)
         	return false;
-    	vertices.add(new Vertex<L>(vertex));
+    	Vertex<L> v = createVertex(vertex);
+    	assert !validator.incremental() || checkVertex(v);
     	return true;
     }
     
     @Override public int set(L source, L target, int weight) {
-    	assert checkRep();
+    	assert validate();
     	Vertex<L> s = ensureVertexByName(source);
         Vertex<L> t = ensureVertexByName(target);
         
-        return s.setEdgeTo(t, weight);
+        int oldWeight = s.setEdgeTo(t, weight);
+        countEdge(oldWeight, weight);
+        assert !validator.incremental() || checkVertex(s) && checkVertex(t);
+        return oldWeight;
     }
     
     @Override public void set(L source, L target) {
-    	assert checkRep();
+    	assert validate();
     	Vertex<L> s = ensureVertexByName(source);
     	Vertex<L> t = ensureVertexByName(target);
     	
-    	s.setEdgeTo(t, s.getEdgeTo(t) + 1);
+    	int oldWeight = s.setEdgeTo(t, s.getEdgeTo(t) + 1);
+    	countEdge(oldWeight, oldWeight + 1);
+    	assert !validator.incremental() || checkVertex(s) && checkVertex(t);
+    }
+    
+    /**
+     * Update edgeCount after the weight of an edge changed.
+     * @param oldWeight weight before, 0 if there was no edge
+     * @param weight weight after, 0 if there is no edge
+     */
+    private void countEdge(int oldWeight, int weight) {
+    	if (oldWeight == 0 && weight > 0)
+    		++edgeCount;
+    	else if (oldWeight > 0 && weight == 0)
+    		--edgeCount;
     }
     
     @Override public boolean remove(L vertex) {
-    	assert checkRep();
-    	Vertex<L> v = getVertexByName(vertex);
+    	assert validate();
+    	Vertex<L> v = vertices.remove(vertex);
         if (v == null)
         	return false;
-        vertices.remove(v);
         
-        // Get rid of any edges pointing to v
-        for (Vertex<L> source: vertices)
-        	source.setEdgeTo(v, 0);
+        // Former neighbours of v, only kept for the incremental check
+        Set<Vertex<L>> neighbours = null;
+        if (validator.incremental()) {
+        	neighbours = new HashSet<>(v.outwardEdgesView().keySet());
+        	neighbours.addAll(v.inwardEdgesView().keySet());
+        }
         
+        // Get rid of any edges to or from v
+        edgeCount -= v.clearEdges();
+        
+        assert !validator.incremental() || checkRemoved(v, neighbours);
         return true;
     }
     
     @Override public Set<L> vertices() {
-    	assert checkRep();
-    	Set<L> s = new HashSet<>();
-    	for (Vertex<L> v: vertices) {
-    		s.add(v.getName());
-    	}
-    	return s;
+    	assert validate();
+    	if (viewMode == ViewMode.VIEW)
+    		return verticesView;
+    	return new HashSet<>(vertices.keySet());
     }
     
     @Override public Map<L, Integer> sources(L target) {
-    	assert checkRep();
-    	Map<L, Integer> sources = new HashMap<>();
-    	for (Vertex<L> v: vertices) {
-    		Vertex<L> t = getVertexByName(target);
-    		assert t != null;
-    		int edgeValue = v.getEdgeTo(getVertexByName(target));
-    		if (edgeValue != 0)
-    			sources.put(v.getName(), edgeValue);
-    	}
-    	return sources;
+    	assert validate();
+    	Vertex<L> t = getVertexByName(target);
+    	return adjacency(t == null ? null : t.inwardEdgesView());
     }
     
     @Override public Map<L, Integer> targets(L source) {
-    	assert checkRep();
-    	Map<L, Integer> targets = new HashMap<>();
+    	assert validate();
         Vertex<L> v = getVertexByName(source);
-        assert v != null;
-        for (Map.Entry<Vertex<L>, Integer> e: v.getOutwardEdges().entrySet())
-        	targets.put(e.getKey().getName(), e.getValue());
-        return targets;
+        return adjacency(v == null ? null : v.outwardEdgesView());
+    }
+    
+    /**
+     * Find the two-edge paths from source to target, as specified by
+     * Graphs.twoHop(), by intersecting the edge maps of the two vertices
+     * without copying them.
+     */
+    Map<L, Integer> twoHop(L source, L target) {
+    	assert validate();
+    	Vertex<L> s = getVertexByName(source);
+    	Vertex<L> t = getVertexByName(target);
+    	return Graphs.intersect(s == null ? null : s.outwardEdgesView(),
+    			t == null ? null : t.inwardEdgesView(), Vertex::getName);
+    }
+    
+    /**
+     * Return a vertex's edge map keyed by label, in the form required by
+     * viewMode.
+     * @param edges read-only edge map of a vertex, or null if there is
+     *        no such vertex
+     */
+    private Map<L, Integer> adjacency(Map<Vertex<L>, Integer> edges) {
+    	if (viewMode == ViewMode.VIEW)
+    		return edges == null ? Collections.emptyMap()
+    				: new LabelledEdges<L>(edges, vertices);
+    	Map<L, Integer> copy = new HashMap<>();
+    	if (edges != null)
+    		for (Map.Entry<Vertex<L>, Integer> e: edges.entrySet())
+    			copy.put(e.getKey().getName(), e.getValue());
+    	return copy;
     }
     
     @Override public String toString() {
-    	assert checkRep();
+    	assert validate();
     	StringBuilder sb = new StringBuilder();
     	sb.append(String.format("%s@{", getClass().getName()));
-    	for (Vertex<L> v: vertices)
+    	for (Vertex<L> v: vertices.values())
     		sb.append(v.toString()).append(", ");
     	return sb.append("}").toString();
     }
@@ -150,9 +274,9 @@ public class ConcreteVerticesGraph<L> implements Graph<L> {
  * This class is internal to the rep of ConcreteVerticesGraph.
  * 
  * Internally, it stores a map of the vertices to which it has
- * edges (and the weight of that edge). 
- * Vertex doesn't know about any edges originating from other 
- * vertices, even if they point to it.
+ * edges (and the weight of that edge), and a mirror map of the
+ * vertices which have edges pointing to it, so that incoming edges
+ * can be found without visiting every other vertex.
  */
 class Vertex<L> {
     
@@ -160,6 +284,10 @@ class Vertex<L> {
 	// Refers to edges leading away from this vertex ONLY.
 	private Map<Vertex<L>, Integer> edges;
 	
+	// Refers to edges leading into this vertex; maintained by the
+	// source vertex whenever it changes an outward edge.
+	private final Map<Vertex<L>, Integer> inEdges;
+	
 	// The name of the vertex (can't be changed once assigned) 
 	private final L name;
     
@@ -171,25 +299,40 @@ class Vertex<L> {
     // Representation invariant:
 	//	 No edge should ever point to a null Vertex - i.e. the
 	//   'edges' map should never contain dangling references
+	//   For every (t, w) in edges, t.inEdges contains (this, w) and
+	//   w > 0, and for every (s, w) in inEdges, s.edges contains (this, w)
 	//
     // Safety from rep exposure:
     //   Always returns a copy of the edges map
+    //
+    // The rep invariant is not asserted by the methods of this class;
+    // ConcreteVerticesGraph checks it as often as its ValidationMode asks.
     
 	public Vertex(L name) {
     	this.name = name;
 		this.edges = new HashMap<Vertex<L>, Integer>();
+		this.inEdges = new HashMap<Vertex<L>, Integer>();
 	}
     
-	private boolean checkRep() {
-		for (Vertex<L> v: edges.keySet())
-			if (v.equals(null))
+	/**
+	 * Check the rep invariant, in time proportional to the number of
+	 * edges to or from this vertex.
+	 * @return true iff the rep invariant holds
+	 */
+	boolean checkRep() {
+		for (Map.Entry<Vertex<L>, Integer> e: edges.entrySet())
+			if (e.getKey() == null || e.getValue() <= 0
+					|| !e.getValue().equals(e.getKey().inEdges.get(this)))
+				return false;
+		for (Map.Entry<Vertex<L>, Integer> e: inEdges.entrySet())
+			if (e.getKey() == null
+					|| !e.getValue().equals(e.getKey().edges.get(this)))
 				return false;
 		return true;
 	}
 	
 	
 	public L getName() {
-		assert checkRep();
     	return name;
 	}
     
@@ -206,16 +349,19 @@ class Vertex<L> {
      * 			no such edge
      */
 	public int setEdgeTo(Vertex<L> target, int weight) {
-		assert checkRep();
     	if (edges.containsKey(target)) {
-			if (weight == 0)
+			if (weight == 0) {
+				target.inEdges.remove(this);
 				return edges.remove(target);
-			else
+			} else {
+				target.inEdges.put(this, weight);
 				return edges.put(target, weight);
+			}
 		}
 		// new target
 		if (weight != 0) {
 			edges.put(target, weight);
+			target.inEdges.put(this, weight);
 		}
 		return 0;
 	}
@@ -228,23 +374,58 @@ class Vertex<L> {
 	 * @return the value of the edge, or zero if there is no edge.
 	 */
 	public int getEdgeTo(Vertex<L> target) {
-		assert checkRep();
     	if (hasEdgeTo(target))
 			return edges.get(target);
 		return 0;
 	}
 	
 	public Map<Vertex<L>, Integer> getOutwardEdges() {
-		assert checkRep();
     	return new HashMap<Vertex<L>, Integer>(edges);
 	}
 	
+	public Map<Vertex<L>, Integer> getInwardEdges() {
+    	return new HashMap<Vertex<L>, Integer>(inEdges);
+	}
+	
+	/**
+	 * @return an unmodifiable view of the edges leading away from this
+	 *         vertex, valid until the vertex is next changed
+	 */
+	Map<Vertex<L>, Integer> outwardEdgesView() {
+		return Collections.unmodifiableMap(edges);
+	}
+	
+	/**
+	 * @return an unmodifiable view of the edges leading into this
+	 *         vertex, valid until the vertex is next changed
+	 */
+	Map<Vertex<L>, Integer> inwardEdgesView() {
+		return Collections.unmodifiableMap(inEdges);
+	}
+	
+	/**
+	 * Remove every edge to or from this vertex, in time proportional
+	 * to the number of such edges.
+	 * 
+	 * @return the number of edges removed
+	 */
+	public int clearEdges() {
+		int removed = edges.size() + inEdges.size()
+				- (edges.containsKey(this) ? 1 : 0);
+		for (Vertex<L> source: inEdges.keySet())
+			source.edges.remove(this);
+		for (Vertex<L> target: edges.keySet())
+			target.inEdges.remove(this);
+		inEdges.clear();
+		edges.clear();
+		return removed;
+	}
+	
 	public List<Vertex<L>> getTargets() {
 		return new ArrayList<>(edges.keySet());
 	}
 	
 	public boolean hasOutwardEdges() {
-		assert checkRep();
     	return edges.size() != 0;
 	}
 	
@@ -253,7 +434,6 @@ class Vertex<L> {
 	}
     
     public String toString() {
-    	assert checkRep();
     	StringBuilder sb = new StringBuilder();
     	sb.append(String.format("%s@{%s",
     		getClass().getName(), name));
@@ -265,4 +445,67 @@ class Vertex<L> {
     }
     
 }
- 
\ No newline at end of file
+
+/**
+ * Unmodifiable view of a Vertex's edge map, keyed by vertex label
+ * rather than by Vertex.
+ * This class is internal to the rep of ConcreteVerticesGraph.
+ * 
+ * Lookups go through the graph's label index, so get() and
+ * containsKey() stay constant-time and nothing is copied.
+ */
+class LabelledEdges<L> extends AbstractMap<L, Integer> {
+    
+    private final Map<Vertex<L>, Integer> edges;
+    private final Map<L, Vertex<L>> index;
+    
+    // Abstraction function:
+    //   AF(r) = { v.getName(): w for all (v, w) in r.edges }
+    // Representation invariant:
+    //   every key of edges is a value of index
+    // Safety from rep exposure:
+    //   both maps are only read; entries handed out are immutable
+    
+    public LabelledEdges(Map<Vertex<L>, Integer> edges, Map<L, Vertex<L>> index) {
+    	this.edges = edges;
+    	this.index = index;
+    }
+    
+    @Override public Integer get(Object label) {
+    	Vertex<L> v = index.get(label);
+    	return v == null ? null : edges.get(v);
+    }
+    
+    @Override public boolean containsKey(Object label) {
+    	Vertex<L> v = index.get(label);
+    	return v != null && edges.containsKey(v);
+    }
+    
+    @Override public int size() {
+    	return edges.size();
+    }
+    
+    @Override public Set<Map.Entry<L, Integer>> entrySet() {
+    	return new AbstractSet<Map.Entry<L, Integer>>() {
+    		@Override public int size() {
+    			return edges.size();
+    		}
+    		
+    		@Override public Iterator<Map.Entry<L, Integer>> iterator() {
+    			Iterator<Map.Entry<Vertex<L>, Integer>> it = edges.entrySet().iterator();
+    			return new Iterator<Map.Entry<L, Integer>>() {
+    				@Override public boolean hasNext() {
+    					return it.hasNext();
+    				}
+    				
+    				@Override public Map.Entry<L, Integer> next() {
+    					Map.Entry<Vertex<L>, Integer> e = it.next();
+    					return new AbstractMap.SimpleImmutableEntry<>(
+    							e.getKey().getName(), e.getValue());
+    				}
+    			};
+    		}
+    	};
+    }
+    
+}
@@ -0,0 +1,257 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A thread-safe implementation of Graph.
+ * 
+ * <p>Every operation is atomic with respect to the others, except that
+ * vertices(), sources() and targets() return a snapshot which reflects
+ * each edge as of some moment during the call. Incrementing an existing
+ * edge with set(source, target) is a single compare-and-set on its weight,
+ * and never blocks.
+ */
+public class ConcurrentGraph<L> implements Graph<L> {
+    
+    private final ConcurrentMap<L, Adjacency<L>> vertices = new ConcurrentHashMap<>();
+    
+    // Abstraction function:
+    //   AF(r) = an ordered pair (V, E)
+    //      where V = r.vertices.keySet()
+    //      and E = { (s, t) for all s in V, (t, w) in r.vertices[s].out
+    //                where w.get() > 0 }
+    //      and there exists a W such that W(s, t) = r.vertices[s].out[t].get()
+    //      for all (s, t) in E.
+    // Representation invariant (when no operation is in progress):
+    //   - for every live edge (s, t, w) in vertices[s].out, t is in
+    //     vertices and vertices[t].in[s] is the same AtomicInteger w
+    //   - a weight of 0 marks a dead edge which is being unlinked; dead
+    //     edges are never observed by clients, and a race may leave one
+    //     behind in an in map until that edge is next created
+    // Safety from rep exposure:
+    //   - Adjacency and AtomicInteger instances are never returned
+    //   - vertices(), sources(), targets() return copies
+    // Thread safety argument:
+    //   - vertices and every adjacency map are ConcurrentHashMaps
+    //   - an edge's weight lives in one AtomicInteger shared by the
+    //     forward and reverse maps, so both always agree on its value;
+    //     it only changes by compare-and-set, and once it reaches 0 it
+    //     is never revived, so an update racing with a removal either
+    //     wins the CAS or sees 0 and retries on a fresh counter
+    //   - remove() marks the Adjacency as removed before unlinking its
+    //     edges, and set() re-checks that mark after linking a new edge,
+    //     so an edge can never be left pointing at a removed vertex
+    
+    // Default constructor will be fine here
+    
+    /**
+     * Check the rep invariant. Only meaningful when no other thread is
+     * modifying this graph.
+     * @return true iff the rep invariant holds
+     */
+    boolean checkRep() {
+    	for (Map.Entry<L, Adjacency<L>> v: vertices.entrySet()) {
+    		for (Map.Entry<L, AtomicInteger> e: v.getValue().out.entrySet()) {
+    			if (e.getValue().get() <= 0)
+    				return false;
+    			Adjacency<L> target = vertices.get(e.getKey());
+    			if (target == null || target.in.get(v.getKey()) != e.getValue())
+    				return false;
+    		}
+    		for (Map.Entry<L, AtomicInteger> e: v.getValue().in.entrySet()) {
+    			Adjacency<L> source = vertices.get(e.getKey());
+    			if (e.getValue().get() > 0 && (source == null
+    					|| source.out.get(v.getKey()) != e.getValue()))
+    				return false;
+    		}
+    	}
+    	return true;
+    }
+    
+    @Override public boolean add(L vertex) {
+    	return vertices.putIfAbsent(vertex, new Adjacency<L>()) == null;
+    }
+    
+    @Override public int set(L source, L target, int weight) {
+    	if (weight < 0)
+    		throw new IllegalArgumentException("Requires weight >= 0");
+    	while (true) {
+    		if (weight == 0) {
+    			Adjacency<L> s = vertices.get(source);
+    			AtomicInteger edge = s == null ? null : s.out.get(target);
+    			if (edge == null)
+    				return 0;
+    			int old = edge.get();
+    			if (old == 0) {
+    				unlink(source, s, target, edge);
+    			} else if (edge.compareAndSet(old, 0)) {
+    				unlink(source, s, target, edge);
+    				return old;
+    			}
+    			continue;
+    		}
+    		Adjacency<L> s = vertex(source);
+    		Adjacency<L> t = vertex(target);
+    		AtomicInteger edge = s.out.get(target);
+    		if (edge == null) {
+    			edge = new AtomicInteger(weight);
+    			if (link(source, s, target, t, edge))
+    				return 0;
+    			continue;
+    		}
+    		int old = edge.get();
+    		if (old == 0)
+    			unlink(source, s, target, edge);
+    		else if (edge.compareAndSet(old, weight))
+    			return old;
+    	}
+    }
+    
+    @Override public void set(L source, L target) {
+    	while (true) {
+    		Adjacency<L> s = vertex(source);
+    		AtomicInteger edge = s.out.get(target);
+    		if (edge == null) {
+    			Adjacency<L> t = vertex(target);
+    			if (link(source, s, target, t, new AtomicInteger(1)))
+    				return;
+    			continue;
+    		}
+    		int old = edge.get();
+    		if (old == 0)
+    			unlink(source, s, target, edge);
+    		else if (edge.compareAndSet(old, old + 1))
+    			return;
+    	}
+    }
+    
+    /**
+     * Get the adjacency of a vertex, adding the vertex if it is absent.
+     */
+    private Adjacency<L> vertex(L label) {
+    	return vertices.computeIfAbsent(label, l -> new Adjacency<L>());
+    }
+    
+    /**
+     * Try to add a new edge from s to t.
+     * @return true if the edge was added; false if another edge from s to
+     *         t was added first, or s or t was concurrently removed, in
+     *         which case the caller should retry
+     */
+    private boolean link(L source, Adjacency<L> s, L target, Adjacency<L> t,
+    		AtomicInteger edge) {
+    	if (s.out.putIfAbsent(target, edge) != null)
+    		return false;
+    	// A slow link() of an edge that has since died must not hide a newer
+    	// live edge, and a dead edge must not hide this one
+    	t.in.merge(source, edge, (current, e) -> current.get() > 0 ? current : e);
+    	if (edge.get() == 0)
+    		t.in.remove(source, edge);
+    	if (s.removed || t.removed) {
+    		// Lost a race with remove(): kill the edge and start again
+    		edge.set(0);
+    		unlinkFrom(source, s, target, t, edge);
+    		return false;
+    	}
+    	return true;
+    }
+    
+    /**
+     * Unlink a dead edge from the adjacency of its source in which it was
+     * found, and from the current adjacency of its target.
+     */
+    private void unlink(L source, Adjacency<L> s, L target, AtomicInteger edge) {
+    	unlinkFrom(source, s, target, vertices.get(target), edge);
+    }
+    
+    private static <L> void unlinkFrom(L source, Adjacency<L> s, L target,
+    		Adjacency<L> t, AtomicInteger edge) {
+    	if (s != null)
+    		s.out.remove(target, edge);
+    	if (t != null)
+    		t.in.remove(source, edge);
+    }
+    
+    @Override public boolean remove(L vertex) {
+    	Adjacency<L> v = vertices.remove(vertex);
+    	if (v == null)
+    		return false;
+    	v.removed = true;
+    	for (Map.Entry<L, AtomicInteger> e: v.out.entrySet()) {
+    		e.getValue().set(0);
+    		Adjacency<L> t = vertices.get(e.getKey());
+    		if (t != null)
+    			t.in.remove(vertex, e.getValue());
+    	}
+    	for (Map.Entry<L, AtomicInteger> e: v.in.entrySet()) {
+    		e.getValue().set(0);
+    		Adjacency<L> s = vertices.get(e.getKey());
+    		if (s != null)
+    			s.out.remove(vertex, e.getValue());
+    	}
+    	return true;
+    }
+    
+    @Override public Set<L> vertices() {
+    	return new HashSet<>(vertices.keySet());
+    }
+    
+    @Override public Map<L, Integer> sources(L target) {
+    	Adjacency<L> t = vertices.get(target);
+    	return t == null ? new HashMap<>() : live(t.in);
+    }
+    
+    @Override public Map<L, Integer> targets(L source) {
+    	Adjacency<L> s = vertices.get(source);
+    	return s == null ? new HashMap<>() : live(s.out);
+    }
+    
+    /**
+     * Copy the live edges of one side of an adjacency.
+     */
+    private static <L> Map<L, Integer> live(Map<L, AtomicInteger> edges) {
+    	Map<L, Integer> weights = new HashMap<>();
+    	edges.forEach((label, edge) -> {
+    		int w = edge.get();
+    		if (w > 0)
+    			weights.put(label, w);
+    	});
+    	return weights;
+    }
+    
+    @Override public String toString() {
+    	StringBuilder sb = new StringBuilder("ConcurrentGraph:");
+    	sb.append("vertices={");
+    	vertices.keySet().forEach((v) -> sb.append(v + ","));
+    	sb.append("} edges={");
+    	vertices.forEach((s, adjacency) -> live(adjacency.out).forEach(
+    			(t, w) -> sb.append(s + "->" + t + "=" + w + ",")));
+    	return sb.append("}").toString();
+    }
+    
+}
+
+/**
+ * The edges to and from one vertex of a ConcurrentGraph.
+ * Mutable and thread-safe; internal to the rep of ConcurrentGraph.
+ */
+class Adjacency<L> {
+    
+    // Edges from this vertex, by target, and to it, by source. The same
+    // AtomicInteger is shared by both ends of an edge.
+    final ConcurrentMap<L, AtomicInteger> out = new ConcurrentHashMap<>();
+    final ConcurrentMap<L, AtomicInteger> in = new ConcurrentHashMap<>();
+    
+    // Set once the vertex has been removed from its graph
+    volatile boolean removed = false;
+    
+}
@@ -0,0 +1,424 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable snapshot of a Graph, compiled into compact sorted arrays for
+ * fast, allocation-light reads.
+ * 
+ * <p>Vertices are numbered by dense int ids, and the edges of all vertices
+ * are stored in compressed sparse row form: one array of neighbour ids and
+ * one of weights for the outgoing edges, and two more for the incoming
+ * edges, with each vertex's slice sorted by neighbour id.
+ * vertices(), sources() and targets() return unmodifiable views of these
+ * arrays without copying, and the mutators add(), set() and remove() always
+ * throw UnsupportedOperationException.
+ * 
+ * <p>FrozenGraph is immutable, so one instance can be shared by any number
+ * of threads without locking.
+ */
+public class FrozenGraph<L> implements Graph<L> {
+    
+    private final List<L> labels;
+    private final Map<L, Integer> ids;
+    private final Set<L> vertices;
+    private final int[] outOffsets;
+    private final int[] outIds;
+    private final int[] outWeights;
+    private final int[] inOffsets;
+    private final int[] inIds;
+    private final int[] inWeights;
+    
+    // Abstraction function:
+    //   AF(r) = an ordered pair (V, E)
+    //      where V = { r.labels[i] for all 0 <= i < n }, n = r.labels.size()
+    //      and E = { (r.labels[s], r.labels[r.outIds[k]]) for all s and
+    //                r.outOffsets[s] <= k < r.outOffsets[s+1] }
+    //      and there exists a W such that W(r.labels[s], r.labels[r.outIds[k]])
+    //      = r.outWeights[k] for all such edges.
+    // Representation invariant:
+    //   - labels are distinct and ids[labels[i]] == i
+    //   - outOffsets and inOffsets have n + 1 non-decreasing elements,
+    //     starting at 0 and ending at the number of edges
+    //   - every slice of outIds and inIds is strictly increasing, holds ids
+    //     in [0, n), and every weight is > 0
+    //   - the in arrays are exactly the transpose of the out arrays
+    // Safety from rep exposure:
+    //   - all fields are private and final, and never mutated after the
+    //     constructor; arrays are only returned to GraphFormat in this
+    //     package, which only reads them
+    //   - vertices(), sources(), targets() return unmodifiable views
+    // Thread safety argument:
+    //   - immutable, and all fields are final so the rep is safely
+    //     published to every thread that sees the reference
+    
+    /**
+     * Compile a snapshot of a graph. Later changes to the graph are not
+     * reflected in the snapshot.
+     * 
+     * @param <L> type of vertex labels in the graph, must be immutable
+     * @param graph graph to copy; must not be modified during this call
+     * @return an immutable graph with the same vertices and edges as graph;
+     *         graph itself if it is already a FrozenGraph
+     */
+    public static <L> FrozenGraph<L> of(Graph<L> graph) {
+    	if (graph instanceof FrozenGraph)
+    		return (FrozenGraph<L>) graph;
+    	List<L> labels = Arrays.asList(toArray(graph.vertices()));
+    	Map<L, Integer> ids = new HashMap<>();
+    	for (int i = 0; i < labels.size(); i++)
+    		ids.put(labels.get(i), i);
+    	
+    	int[] outOffsets = new int[labels.size() + 1];
+    	int[][] targets = new int[labels.size()][];
+    	int[][] weights = new int[labels.size()][];
+    	for (int s = 0; s < labels.size(); s++) {
+    		Map<L, Integer> edges = graph.targets(labels.get(s));
+    		long[] packed = new long[edges.size()];
+    		int k = 0;
+    		for (Map.Entry<L, Integer> e: edges.entrySet())
+    			packed[k++] = ((long) ids.get(e.getKey()) << 32) | e.getValue();
+    		Arrays.sort(packed);
+    		targets[s] = new int[packed.length];
+    		weights[s] = new int[packed.length];
+    		for (k = 0; k < packed.length; k++) {
+    			targets[s][k] = (int) (packed[k] >>> 32);
+    			weights[s][k] = (int) packed[k];
+    		}
+    		outOffsets[s + 1] = outOffsets[s] + packed.length;
+    	}
+    	int[] outIds = new int[outOffsets[labels.size()]];
+    	int[] outWeights = new int[outIds.length];
+    	for (int s = 0; s < labels.size(); s++) {
+    		System.arraycopy(targets[s], 0, outIds, outOffsets[s], targets[s].length);
+    		System.arraycopy(weights[s], 0, outWeights, outOffsets[s], weights[s].length);
+    	}
+    	return new FrozenGraph<>(labels, ids, outOffsets, outIds, outWeights);
+    }
+    
+    /**
+     * Compile a snapshot of the sum of this graph and another: its vertices
+     * are the vertices of both, and each edge weight is the sum of the
+     * weights of that edge in both graphs. This graph is not changed.
+     * 
+     * @param delta graph to add; must not be modified during this call
+     * @return an immutable graph of the sum of this graph and delta
+     */
+    public FrozenGraph<L> plus(Graph<L> delta) {
+    	List<L> sumLabels = new ArrayList<>(labels);
+    	Map<L, Integer> sumIds = new HashMap<>(ids);
+    	for (L v: delta.vertices())
+    		if (!sumIds.containsKey(v)) {
+    			sumIds.put(v, sumLabels.size());
+    			sumLabels.add(v);
+    		}
+    	
+    	// Merge each vertex's sorted slice with its sorted delta edges
+    	int n = sumLabels.size();
+    	int[] sumOffsets = new int[n + 1];
+    	int[] sumIdsOut = new int[outIds.length];
+    	int[] sumWeights = new int[outIds.length];
+    	int k = 0;
+    	for (int s = 0; s < n; s++) {
+    		Map<L, Integer> edges = delta.targets(sumLabels.get(s));
+    		long[] packed = new long[edges.size()];
+    		int j = 0;
+    		for (Map.Entry<L, Integer> e: edges.entrySet())
+    			packed[j++] = ((long) sumIds.get(e.getKey()) << 32) | e.getValue();
+    		Arrays.sort(packed);
+    		
+    		int from = s < labels.size() ? outOffsets[s] : 0;
+    		int to = s < labels.size() ? outOffsets[s + 1] : 0;
+    		if (k + (to - from) + packed.length > sumIdsOut.length) {
+    			int capacity = Math.max(2 * sumIdsOut.length, k + (to - from) + packed.length);
+    			sumIdsOut = Arrays.copyOf(sumIdsOut, capacity);
+    			sumWeights = Arrays.copyOf(sumWeights, capacity);
+    		}
+    		int i = from;
+    		j = 0;
+    		while (i < to || j < packed.length) {
+    			int deltaId = j < packed.length ? (int) (packed[j] >>> 32) : Integer.MAX_VALUE;
+    			if (i < to && outIds[i] < deltaId) {
+    				sumIdsOut[k] = outIds[i];
+    				sumWeights[k++] = outWeights[i++];
+    			} else if (i < to && outIds[i] == deltaId) {
+    				sumIdsOut[k] = outIds[i];
+    				sumWeights[k++] = outWeights[i++] + (int) packed[j++];
+    			} else {
+    				sumIdsOut[k] = deltaId;
+    				sumWeights[k++] = (int) packed[j++];
+    			}
+    		}
+    		sumOffsets[s + 1] = k;
+    	}
+    	return new FrozenGraph<>(sumLabels, sumIds, sumOffsets,
+    			Arrays.copyOf(sumIdsOut, k), Arrays.copyOf(sumWeights, k));
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <L> L[] toArray(Set<L> vertices) {
+    	return (L[]) vertices.toArray();
+    }
+    
+    /**
+     * Create a frozen graph from its outgoing edges in compressed sparse
+     * row form, computing the incoming edges.
+     * 
+     * @param labels distinct vertex labels, indexed by id; not copied
+     * @param ids map from each label to its id; not copied
+     * @param outOffsets out edges of vertex s are at [outOffsets[s],
+     *        outOffsets[s+1]) of outIds and outWeights; not copied
+     * @param outIds target ids, strictly increasing within each vertex's
+     *        slice; not copied
+     * @param outWeights positive weights; not copied
+     */
+    FrozenGraph(List<L> labels, Map<L, Integer> ids,
+    		int[] outOffsets, int[] outIds, int[] outWeights) {
+    	this.labels = labels;
+    	this.ids = ids;
+    	this.vertices = Collections.unmodifiableSet(ids.keySet());
+    	this.outOffsets = outOffsets;
+    	this.outIds = outIds;
+    	this.outWeights = outWeights;
+    	
+    	// Transpose by counting sort: visiting sources in increasing order
+    	// leaves every in slice sorted
+    	int n = labels.size();
+    	inOffsets = new int[n + 1];
+    	for (int t: outIds)
+    		inOffsets[t + 1]++;
+    	for (int t = 0; t < n; t++)
+    		inOffsets[t + 1] += inOffsets[t];
+    	inIds = new int[outIds.length];
+    	inWeights = new int[outIds.length];
+    	int[] next = Arrays.copyOf(inOffsets, n);
+    	for (int s = 0; s < n; s++)
+    		for (int k = outOffsets[s]; k < outOffsets[s + 1]; k++) {
+    			int slot = next[outIds[k]]++;
+    			inIds[slot] = s;
+    			inWeights[slot] = outWeights[k];
+    		}
+    	assert checkRep();
+    }
+    
+    private boolean checkRep() {
+    	int n = labels.size();
+    	if (ids.size() != n || outOffsets.length != n + 1 || inOffsets.length != n + 1)
+    		return false;
+    	for (int i = 0; i < n; i++)
+    		if (ids.get(labels.get(i)) != i)
+    			return false;
+    	return checkSlices(outOffsets, outIds, outWeights)
+    			&& checkSlices(inOffsets, inIds, inWeights);
+    }
+    
+    private boolean checkSlices(int[] offsets, int[] neighbours, int[] weights) {
+    	int n = labels.size();
+    	if (offsets[0] != 0 || offsets[n] != neighbours.length)
+    		return false;
+    	for (int v = 0; v < n; v++)
+    		for (int k = offsets[v]; k < offsets[v + 1]; k++)
+    			if (neighbours[k] < 0 || neighbours[k] >= n || weights[k] <= 0
+    					|| (k > offsets[v] && neighbours[k] <= neighbours[k - 1]))
+    				return false;
+    	return true;
+    }
+    
+    /**
+     * @throws UnsupportedOperationException always; a FrozenGraph is immutable
+     */
+    @Override public boolean add(L vertex) {
+    	throw new UnsupportedOperationException("FrozenGraph is immutable");
+    }
+    
+    /**
+     * @throws UnsupportedOperationException always; a FrozenGraph is immutable
+     */
+    @Override public int set(L source, L target, int weight) {
+    	throw new UnsupportedOperationException("FrozenGraph is immutable");
+    }
+    
+    /**
+     * @throws UnsupportedOperationException always; a FrozenGraph is immutable
+     */
+    @Override public void set(L source, L target) {
+    	throw new UnsupportedOperationException("FrozenGraph is immutable");
+    }
+    
+    /**
+     * @throws UnsupportedOperationException always; a FrozenGraph is immutable
+     */
+    @Override public boolean remove(L vertex) {
+    	throw new UnsupportedOperationException("FrozenGraph is immutable");
+    }
+    
+    @Override public Set<L> vertices() {
+    	return vertices;
+    }
+    
+    @Override public Map<L, Integer> sources(L target) {
+    	Integer t = ids.get(target);
+    	if (t == null)
+    		return Collections.emptyMap();
+    	return new Slice(inOffsets[t], inOffsets[t + 1], inIds, inWeights);
+    }
+    
+    @Override public Map<L, Integer> targets(L source) {
+    	Integer s = ids.get(source);
+    	if (s == null)
+    		return Collections.emptyMap();
+    	return new Slice(outOffsets[s], outOffsets[s + 1], outIds, outWeights);
+    }
+    
+    /**
+     * Find the two-edge paths from source to target, as specified by
+     * Graphs.twoHop(), by intersecting the sorted out slice of source with
+     * the sorted in slice of target. Slices of similar length are merged;
+     * when one is much shorter, each of its ids is binary searched in the
+     * longer one.
+     */
+    Map<L, Integer> twoHop(L source, L target) {
+    	Map<L, Integer> paths = new HashMap<>();
+    	Integer s = ids.get(source), t = ids.get(target);
+    	if (s == null || t == null)
+    		return paths;
+    	int i = outOffsets[s], iEnd = outOffsets[s + 1];
+    	int j = inOffsets[t], jEnd = inOffsets[t + 1];
+    	int shorter = Math.min(iEnd - i, jEnd - j), longer = Math.max(iEnd - i, jEnd - j);
+    	
+    	if (shorter * (32 - Integer.numberOfLeadingZeros(longer)) < shorter + longer) {
+    		boolean walkOut = iEnd - i <= jEnd - j;
+    		for (int k = walkOut ? i : j; k < (walkOut ? iEnd : jEnd); k++) {
+    			int x = walkOut ? outIds[k] : inIds[k];
+    			int found = walkOut ? Arrays.binarySearch(inIds, j, jEnd, x)
+    					: Arrays.binarySearch(outIds, i, iEnd, x);
+    			if (found >= 0)
+    				paths.put(labels.get(x), walkOut ? outWeights[k] + inWeights[found]
+    						: outWeights[found] + inWeights[k]);
+    		}
+    		return paths;
+    	}
+    	while (i < iEnd && j < jEnd) {
+    		if (outIds[i] < inIds[j]) {
+    			i++;
+    		} else if (outIds[i] > inIds[j]) {
+    			j++;
+    		} else {
+    			paths.put(labels.get(outIds[i]), outWeights[i] + inWeights[j]);
+    			i++;
+    			j++;
+    		}
+    	}
+    	return paths;
+    }
+    
+    /** @return vertex labels indexed by id; must not be modified */
+    List<L> labels() {
+    	return labels;
+    }
+    
+    /** @return out edge offsets indexed by source id; must not be modified */
+    int[] outOffsets() {
+    	return outOffsets;
+    }
+    
+    /** @return out edge target ids; must not be modified */
+    int[] outIds() {
+    	return outIds;
+    }
+    
+    /** @return out edge weights; must not be modified */
+    int[] outWeights() {
+    	return outWeights;
+    }
+    
+    @Override public String toString() {
+    	StringBuilder sb = new StringBuilder("FrozenGraph:");
+    	sb.append("vertices={");
+    	labels.forEach((v) -> sb.append(v + ","));
+    	sb.append("} edges={");
+    	for (int s = 0; s < labels.size(); s++)
+    		for (int k = outOffsets[s]; k < outOffsets[s + 1]; k++)
+    			sb.append(labels.get(s) + "->" + labels.get(outIds[k])
+    					+ "=" + outWeights[k] + ",");
+    	return sb.append("}").toString();
+    }
+    
+    /**
+     * Unmodifiable map view of one vertex's slice of the edge arrays, keyed
+     * by the labels of its neighbours.
+     */
+    private class Slice extends AbstractMap<L, Integer> {
+    	
+    	private final int from;
+    	private final int to;
+    	private final int[] neighbours;
+    	private final int[] weights;
+    	
+    	Slice(int from, int to, int[] neighbours, int[] weights) {
+    		this.from = from;
+    		this.to = to;
+    		this.neighbours = neighbours;
+    		this.weights = weights;
+    	}
+    	
+    	private int indexOf(Object label) {
+    		Integer id = ids.get(label);
+    		return id == null ? -1 : Arrays.binarySearch(neighbours, from, to, id);
+    	}
+    	
+    	@Override public Integer get(Object label) {
+    		int k = indexOf(label);
+    		return k < 0 ? null : weights[k];
+    	}
+    	
+    	@Override public boolean containsKey(Object label) {
+    		return indexOf(label) >= 0;
+    	}
+    	
+    	@Override public int size() {
+    		return to - from;
+    	}
+    	
+    	@Override public Set<Map.Entry<L, Integer>> entrySet() {
+    		return new AbstractSet<Map.Entry<L, Integer>>() {
+    			@Override public int size() {
+    				return to - from;
+    			}
+    			
+    			@Override public Iterator<Map.Entry<L, Integer>> iterator() {
+    				return new Iterator<Map.Entry<L, Integer>>() {
+    					private int k = from;
+    					
+    					@Override public boolean hasNext() {
+    						return k < to;
+    					}
+    					
+    					@Override public Map.Entry<L, Integer> next() {
+    						if (k >= to)
+    							throw new NoSuchElementException();
+    						Map.Entry<L, Integer> e = new AbstractMap.SimpleImmutableEntry<>(
+    								labels.get(neighbours[k]), weights[k]);
+    						k++;
+    						return e;
+    					}
+    				};
+    			}
+    		};
+    	}
+    }
+    
+}
@@ -0,0 +1,254 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * A compact, versioned binary format for graphs with String labels, read
+ * back as a FrozenGraph.
+ * 
+ * <p>A graph file holds, in order:
+ * <ul>
+ * <li>the four magic bytes {@code PS2G} and one version byte, currently 1;
+ * <li>the number of vertices n and the number of edges, as varints;
+ * <li>the vocabulary: for each vertex id 0 to n-1, the length of its label
+ *     in UTF-8 bytes as a varint, then those bytes;
+ * <li>the adjacency: for each vertex id in order, its out-degree, then for
+ *     each outgoing edge in increasing order of target id, the gap from the
+ *     previous target id (or the target id itself, for the first edge) and
+ *     the weight, all as varints; a vertex may have an edge to itself;
+ * <li>a big-endian CRC-32 of every preceding byte.
+ * </ul>
+ * A varint is an unsigned int written 7 bits at a time, low bits first,
+ * with the high bit of each byte set on all but the last byte.
+ */
+public final class GraphFormat {
+    
+    /** Version of the format written by this class. */
+    public static final int VERSION = 1;
+    
+    private static final byte[] MAGIC = { 'P', 'S', '2', 'G' };
+    private static final int HEADER_SIZE = MAGIC.length + 1;
+    private static final int CRC_SIZE = 4;
+    
+    private GraphFormat() {
+    	throw new AssertionError("static utility class");
+    }
+    
+    /**
+     * Write a graph to a file, replacing any existing file.
+     * 
+     * @param graph graph to write; must not be modified during this call
+     * @param file file to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void save(Graph<String> graph, Path file) throws IOException {
+    	try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+    		write(graph, out);
+    	}
+    }
+    
+    /**
+     * Write a graph to a stream.
+     * 
+     * @param graph graph to write; must not be modified during this call
+     * @param out stream to write to; flushed but not closed
+     * @throws IOException if the stream cannot be written
+     */
+    public static void write(Graph<String> graph, OutputStream out) throws IOException {
+    	FrozenGraph<String> frozen = FrozenGraph.of(graph);
+    	List<String> labels = frozen.labels();
+    	int[] offsets = frozen.outOffsets();
+    	int[] ids = frozen.outIds();
+    	int[] weights = frozen.outWeights();
+    	
+    	Encoder encoder = new Encoder(out);
+    	encoder.bytes(MAGIC);
+    	encoder.bytes(new byte[] { VERSION });
+    	encoder.varint(labels.size());
+    	encoder.varint(ids.length);
+    	for (String label: labels) {
+    		byte[] utf8 = label.getBytes(StandardCharsets.UTF_8);
+    		encoder.varint(utf8.length);
+    		encoder.bytes(utf8);
+    	}
+    	for (int s = 0; s < labels.size(); s++) {
+    		encoder.varint(offsets[s + 1] - offsets[s]);
+    		int previous = 0;
+    		for (int k = offsets[s]; k < offsets[s + 1]; k++) {
+    			encoder.varint(ids[k] - previous);
+    			encoder.varint(weights[k]);
+    			previous = ids[k];
+    		}
+    	}
+    	encoder.crc();
+    	out.flush();
+    }
+    
+    /**
+     * Read a graph file by mapping it into memory.
+     * 
+     * @param file file written by save() or write()
+     * @return the graph in the file
+     * @throws IOException if the file cannot be read, or is not a valid
+     *         graph file of a supported version
+     */
+    public static FrozenGraph<String> load(Path file) throws IOException {
+    	try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+    		if (channel.size() > Integer.MAX_VALUE)
+    			throw new IOException("graph file too large: " + file);
+    		return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    	}
+    }
+    
+    /**
+     * Read a graph from the remaining bytes of a buffer.
+     * 
+     * @param buffer bytes written by write(); its position is advanced to
+     *        its limit
+     * @return the graph in the buffer
+     * @throws IOException if the bytes are not a valid graph of a supported
+     *         version
+     */
+    public static FrozenGraph<String> read(ByteBuffer buffer) throws IOException {
+    	if (buffer.remaining() < HEADER_SIZE + CRC_SIZE)
+    		throw new IOException("not a graph file: too short");
+    	ByteBuffer checked = buffer.duplicate();
+    	checked.limit(checked.limit() - CRC_SIZE);
+    	
+    	byte[] magic = new byte[MAGIC.length];
+    	buffer.get(magic);
+    	if (!Arrays.equals(magic, MAGIC))
+    		throw new IOException("not a graph file: bad magic number");
+    	int version = buffer.get() & 0xFF;
+    	if (version != VERSION)
+    		throw new IOException("unsupported graph file version " + version);
+    	
+    	CRC32 crc = new CRC32();
+    	crc.update(checked);
+    	ByteBuffer body = buffer.slice();
+    	body.limit(body.limit() - CRC_SIZE);
+    	buffer.position(buffer.limit() - CRC_SIZE);
+    	if ((int) crc.getValue() != buffer.getInt())
+    		throw new IOException("corrupt graph file: checksum mismatch");
+    	
+    	try {
+    		return decode(body);
+    	} catch (BufferUnderflowException e) {
+    		throw new IOException("corrupt graph file: truncated", e);
+    	}
+    }
+    
+    private static FrozenGraph<String> decode(ByteBuffer body) throws IOException {
+    	int n = varint(body);
+    	int edges = varint(body);
+    	String[] labels = new String[n];
+    	Map<String, Integer> ids = new HashMap<>();
+    	byte[] scratch = new byte[64];
+    	for (int i = 0; i < n; i++) {
+    		int length = varint(body);
+    		if (length > body.remaining())
+    			throw new BufferUnderflowException();
+    		if (length > scratch.length)
+    			scratch = new byte[Math.max(length, 2 * scratch.length)];
+    		body.get(scratch, 0, length);
+    		labels[i] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+    		if (ids.put(labels[i], i) != null)
+    			throw new IOException("corrupt graph file: duplicate label " + labels[i]);
+    	}
+    	
+    	int[] offsets = new int[n + 1];
+    	int[] targets = new int[edges];
+    	int[] weights = new int[edges];
+    	int k = 0;
+    	for (int s = 0; s < n; s++) {
+    		int degree = varint(body);
+    		if (degree > edges - k)
+    			throw new IOException("corrupt graph file: too many edges");
+    		int target = 0;
+    		for (int j = 0; j < degree; j++, k++) {
+    			int gap = varint(body);
+    			if ((j > 0 && gap == 0) || gap >= n - target)
+    				throw new IOException("corrupt graph file: bad target id");
+    			target += gap;
+    			targets[k] = target;
+    			weights[k] = varint(body);
+    			if (weights[k] <= 0)
+    				throw new IOException("corrupt graph file: bad weight");
+    		}
+    		offsets[s + 1] = k;
+    	}
+    	if (k != edges || body.hasRemaining())
+    		throw new IOException("corrupt graph file: wrong edge count");
+    	return new FrozenGraph<>(Arrays.asList(labels), ids, offsets, targets, weights);
+    }
+    
+    private static int varint(ByteBuffer in) throws IOException {
+    	int value = 0;
+    	for (int shift = 0; shift < 28; shift += 7) {
+    		byte b = in.get();
+    		value |= (b & 0x7F) << shift;
+    		if (b >= 0)
+    			return value;
+    	}
+    	// fifth byte holds the top 3 bits of a non-negative int
+    	byte b = in.get();
+    	if ((b & 0xF8) != 0)
+    		throw new IOException("corrupt graph file: varint out of range");
+    	return value | b << 28;
+    }
+    
+    /**
+     * Writes bytes and varints to a stream, keeping a running CRC-32.
+     */
+    private static class Encoder {
+    	
+    	private final OutputStream out;
+    	private final CRC32 crc = new CRC32();
+    	private final byte[] buffer = new byte[5];
+    	
+    	Encoder(OutputStream out) {
+    		this.out = out;
+    	}
+    	
+    	void bytes(byte[] bytes) throws IOException {
+    		out.write(bytes);
+    		crc.update(bytes);
+    	}
+    	
+    	void varint(int value) throws IOException {
+    		int length = 0;
+    		while ((value & ~0x7F) != 0) {
+    			buffer[length++] = (byte) ((value & 0x7F) | 0x80);
+    			value >>>= 7;
+    		}
+    		buffer[length++] = (byte) value;
+    		out.write(buffer, 0, length);
+    		crc.update(buffer, 0, length);
+    	}
+    	
+    	void crc() throws IOException {
+    		int value = (int) crc.getValue();
+    		out.write(new byte[] {
+    				(byte) (value >>> 24), (byte) (value >>> 16),
+    				(byte) (value >>> 8), (byte) value });
+    	}
+    }
+    
+}
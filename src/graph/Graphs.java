@@ -0,0 +1,201 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+/**
+ * Static algorithms over any Graph, using only the Graph operations except
+ * where an implementation in this package offers a faster path.
+ */
+public final class Graphs {
+    
+    private Graphs() {
+    	throw new AssertionError("static utility class");
+    }
+    
+    /**
+     * Find the two-edge paths from one vertex to another.
+     * 
+     * <p>The paths are found by intersecting the targets of source with the
+     * sources of target, walking the smaller of the two and looking each
+     * vertex up in the larger. ConcreteEdgesGraph and ConcreteVerticesGraph
+     * intersect their own edge maps, and a FrozenGraph its sorted edge
+     * arrays, so for them the cost grows with the smaller degree in every
+     * ViewMode. Other graphs are intersected through targets() and
+     * sources(), which may first copy both maps.
+     * 
+     * @param <L> type of vertex labels in the graph
+     * @param graph graph to search; must not be modified during this call
+     * @param source first vertex of the paths
+     * @param target last vertex of the paths
+     * @return a new map from each vertex x such that source -> x and
+     *         x -> target are edges of graph, to the sum of the weights of
+     *         those two edges; empty if source or target is not in graph
+     */
+    public static <L> Map<L, Integer> twoHop(Graph<L> graph, L source, L target) {
+    	if (graph instanceof FrozenGraph)
+    		return ((FrozenGraph<L>) graph).twoHop(source, target);
+    	if (graph instanceof ConcreteEdgesGraph)
+    		return ((ConcreteEdgesGraph<L>) graph).twoHop(source, target);
+    	if (graph instanceof ConcreteVerticesGraph)
+    		return ((ConcreteVerticesGraph<L>) graph).twoHop(source, target);
+    	return intersect(graph.targets(source), graph.sources(target),
+    			Function.identity());
+    }
+    
+    /**
+     * Intersect the edges out of one vertex with the edges into another,
+     * walking the smaller map and looking each key up in the larger.
+     * @param <K> type of the keys of the edge maps
+     * @param <L> type of vertex labels
+     * @param out weights of the edges out of the first vertex, by their
+     *        targets; or null if there are none
+     * @param in weights of the edges into the last vertex, by their
+     *        sources; or null if there are none
+     * @param label the vertex label of a key
+     * @return a new map from the label of each key in both out and in, to
+     *         the sum of its two weights
+     */
+    static <K, L> Map<L, Integer> intersect(Map<K, Integer> out,
+    		Map<K, Integer> in, Function<K, L> label) {
+    	Map<L, Integer> paths = new HashMap<>();
+    	if (out == null || in == null)
+    		return paths;
+    	boolean walkOut = out.size() <= in.size();
+    	Map<K, Integer> walked = walkOut ? out : in;
+    	Map<K, Integer> other = walkOut ? in : out;
+    	for (Map.Entry<K, Integer> e: walked.entrySet()) {
+    		Integer weight = other.get(e.getKey());
+    		if (weight != null)
+    			paths.put(label.apply(e.getKey()), e.getValue() + weight);
+    	}
+    	return paths;
+    }
+    
+    /**
+     * Find the most likely path from one vertex to another, treating the
+     * graph as a Markov chain: from each vertex, each outgoing edge is taken
+     * with probability proportional to its weight. So each edge u -> v costs
+     * -log(weight(u, v) / total weight of the edges out of u), and the path
+     * with the lowest total cost is the most likely one.
+     * 
+     * <p>The search is a Dijkstra search bounded in two ways. Paths have at
+     * most maxHops edges, and at most budget search states are expanded,
+     * so the work per call is bounded however large the graph is. If the
+     * budget runs out first, the result is the best path to target found
+     * so far, which may not be the most likely one.
+     * 
+     * @param <L> type of vertex labels in the graph
+     * @param graph graph to search; must not be modified during this call
+     * @param source first vertex of the path
+     * @param target last vertex of the path
+     * @param minHops fewest edges in the path, minHops >= 1
+     * @param maxHops most edges in the path, maxHops >= minHops
+     * @param budget most search states to expand, budget >= 1
+     * @return the vertices of the path in order, from source to target,
+     *         passing through target only at its end; or an empty list if
+     *         no such path was found
+     * @throws IllegalArgumentException if minHops, maxHops or budget is
+     *         out of range
+     */
+    public static <L> List<L> likeliestPath(Graph<L> graph, L source, L target,
+    		int minHops, int maxHops, int budget) {
+    	if (minHops < 1 || maxHops < minHops || budget < 1)
+    		throw new IllegalArgumentException(
+    				"Requires 1 <= minHops <= maxHops and budget >= 1");
+    	
+    	// A state is dominated, and not expanded, if its vertex has already
+    	// been expanded in a state with no more cost (since states are
+    	// expanded in order of cost) that can reach target by the same
+    	// paths: one with the same hops, or, once both have at least
+    	// minHops, with no more hops. So fewestHopsExpanded.get(k) holds the
+    	// fewest hops each vertex was expanded with, among states with
+    	// min(hops, minHops) == k
+    	List<Map<L, Integer>> fewestHopsExpanded = new ArrayList<>(minHops + 1);
+    	for (int k = 0; k <= minHops; k++)
+    		fewestHopsExpanded.add(new HashMap<>());
+    	PriorityQueue<PathState<L>> queue = new PriorityQueue<>();
+    	queue.add(new PathState<>(source, 0, 0.0, null));
+    	PathState<L> best = null;
+    	int expanded = 0;
+    	
+    	while (!queue.isEmpty() && expanded < budget) {
+    		PathState<L> state = queue.poll();
+    		if (state.hops > 0 && state.vertex.equals(target))
+    			return state.path(); // only enqueued if hops >= minHops
+    		Map<L, Integer> fewestHops =
+    				fewestHopsExpanded.get(Math.min(state.hops, minHops));
+    		Integer fewest = fewestHops.get(state.vertex);
+    		if (fewest != null && fewest <= state.hops)
+    			continue;
+    		fewestHops.put(state.vertex, state.hops);
+    		expanded++;
+    		if (state.hops == maxHops)
+    			continue;
+    		
+    		Map<L, Integer> edges = graph.targets(state.vertex);
+    		long total = 0;
+    		for (int weight: edges.values())
+    			total += weight;
+    		double logTotal = Math.log(total);
+    		for (Map.Entry<L, Integer> e: edges.entrySet()) {
+    			L next = e.getKey();
+    			int hops = state.hops + 1;
+    			boolean atTarget = next.equals(target);
+    			if (atTarget && hops < minHops)
+    				continue;
+    			Integer nextFewest =
+    					fewestHopsExpanded.get(Math.min(hops, minHops)).get(next);
+    			if (!atTarget && nextFewest != null && nextFewest <= hops)
+    				continue;
+    			PathState<L> nextState = new PathState<>(next, hops,
+    					state.cost + logTotal - Math.log(e.getValue()), state);
+    			queue.add(nextState);
+    			if (atTarget && (best == null || nextState.cost < best.cost))
+    				best = nextState;
+    		}
+    	}
+    	return best == null ? Collections.<L>emptyList() : best.path();
+    }
+    
+    /**
+     * A path from the source of a likeliestPath() search, ordered by cost
+     * and then by number of edges.
+     */
+    private static class PathState<L> implements Comparable<PathState<L>> {
+    	
+    	final L vertex;
+    	final int hops;
+    	final double cost;
+    	final PathState<L> previous;
+    	
+    	PathState(L vertex, int hops, double cost, PathState<L> previous) {
+    		this.vertex = vertex;
+    		this.hops = hops;
+    		this.cost = cost;
+    		this.previous = previous;
+    	}
+    	
+    	@Override public int compareTo(PathState<L> that) {
+    		int byCost = Double.compare(this.cost, that.cost);
+    		return byCost != 0 ? byCost : Integer.compare(this.hops, that.hops);
+    	}
+    	
+    	List<L> path() {
+    		List<L> path = new ArrayList<>(hops + 1);
+    		for (PathState<L> s = this; s != null; s = s.previous)
+    			path.add(s.vertex);
+    		Collections.reverse(path);
+    		return path;
+    	}
+    }
+    
+}
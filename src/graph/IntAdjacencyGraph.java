@@ -0,0 +1,210 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An implementation of Graph for large graphs.
+ * 
+ * <p>Each label is interned to a dense int id when its vertex is added, and
+ * edges are stored by id in primitive open-addressed maps (IntIntMap), one
+ * for the outgoing and one for the incoming edges of each vertex. An edge
+ * costs a few ints instead of boxed Integers and hash map entries, and
+ * set() never boxes its weight.
+ */
+public class IntAdjacencyGraph<L> implements Graph<L> {
+    
+    private final Map<L, Integer> ids = new HashMap<>();
+    private final List<L> labels = new ArrayList<>();
+    private IntIntMap[] out = new IntIntMap[16];
+    private IntIntMap[] in = new IntIntMap[16];
+    // Ids of removed vertices, reused by later additions
+    private int[] freeIds = new int[16];
+    private int nFree = 0;
+    
+    // Abstraction function:
+    //   AF(r) = an ordered pair (V, E)
+    //      where V = r.ids.keySet()
+    //      and E = { (r.labels[s], r.labels[t]) for all s, t where
+    //                r.out[s] != null and r.out[s].get(t) > 0 }
+    //      and there exists a W such that
+    //      W(r.labels[s], r.labels[t]) = r.out[s].get(t) for all edges.
+    // Representation invariant:
+    //   - ids and labels are inverse: labels[ids[l]] == l for all l in ids,
+    //     and labels[i] is null exactly for the ids in freeIds[0..nFree)
+    //   - out[s].get(t) == in[t].get(s) for all ids s, t; both are 0
+    //     (or the map is null) unless s and t are live ids
+    //   - out and in have at least labels.size() elements
+    // Safety from rep exposure:
+    //   - ids, labels and the int maps are never returned
+    //   - vertices(), sources(), targets() return copies
+    
+    // Default constructor will be fine here
+    
+    private boolean checkRep() {
+    	if (ids.size() + nFree != labels.size())
+    		return false;
+    	for (Map.Entry<L, Integer> e: ids.entrySet())
+    		if (!e.getKey().equals(labels.get(e.getValue())))
+    			return false;
+    	for (int s = 0; s < labels.size(); s++) {
+    		if (out[s] == null)
+    			continue;
+    		if (labels.get(s) == null && out[s].size() > 0)
+    			return false;
+    		for (int slot = 0; slot < out[s].capacity(); slot++) {
+    			int t = out[s].keyAt(slot);
+    			if (t >= 0 && (labels.get(t) == null || in[t] == null
+    					|| in[t].get(s) != out[s].valueAt(slot)))
+    				return false;
+    		}
+    	}
+    	return true;
+    }
+    
+    /**
+     * Get the id of a label, interning it as a new vertex if it is absent.
+     */
+    private int intern(L label) {
+    	Integer id = ids.get(label);
+    	if (id != null)
+    		return id;
+    	int newId;
+    	if (nFree > 0) {
+    		newId = freeIds[--nFree];
+    		labels.set(newId, label);
+    	} else {
+    		newId = labels.size();
+    		labels.add(label);
+    		if (newId == out.length) {
+    			out = Arrays.copyOf(out, newId * 2);
+    			in = Arrays.copyOf(in, newId * 2);
+    		}
+    	}
+    	ids.put(label, newId);
+    	return newId;
+    }
+    
+    @Override public boolean add(L vertex) {
+    	assert checkRep();
+    	if (ids.containsKey(vertex))
+    		return false;
+    	intern(vertex);
+    	return true;
+    }
+    
+    @Override public int set(L source, L target, int weight) {
+    	assert checkRep();
+    	if (weight < 0)
+    		throw new IllegalArgumentException("Requires weight >= 0");
+    	if (weight == 0) {
+    		Integer s = ids.get(source), t = ids.get(target);
+    		if (s == null || t == null || out[s] == null)
+    			return 0;
+    		int old = out[s].remove(t);
+    		if (old != 0)
+    			in[t].remove(s);
+    		return old;
+    	}
+    	int s = intern(source), t = intern(target);
+    	return putEdge(s, t, weight);
+    }
+    
+    @Override public void set(L source, L target) {
+    	assert checkRep();
+    	int s = intern(source), t = intern(target);
+    	int old = out[s] == null ? 0 : out[s].get(t);
+    	putEdge(s, t, old + 1);
+    }
+    
+    /**
+     * Set the weight of the edge between two live ids.
+     * @return the previous weight, or 0 if there was no edge
+     */
+    private int putEdge(int s, int t, int weight) {
+    	if (out[s] == null)
+    		out[s] = new IntIntMap();
+    	if (in[t] == null)
+    		in[t] = new IntIntMap();
+    	in[t].put(s, weight);
+    	return out[s].put(t, weight);
+    }
+    
+    @Override public boolean remove(L vertex) {
+    	assert checkRep();
+    	Integer id = ids.remove(vertex);
+    	if (id == null)
+    		return false;
+    	if (out[id] != null)
+    		for (int slot = 0; slot < out[id].capacity(); slot++) {
+    			int t = out[id].keyAt(slot);
+    			if (t >= 0 && t != id)
+    				in[t].remove(id);
+    		}
+    	if (in[id] != null)
+    		for (int slot = 0; slot < in[id].capacity(); slot++) {
+    			int s = in[id].keyAt(slot);
+    			if (s >= 0 && s != id)
+    				out[s].remove(id);
+    		}
+    	out[id] = null;
+    	in[id] = null;
+    	labels.set(id, null);
+    	if (nFree == freeIds.length)
+    		freeIds = Arrays.copyOf(freeIds, nFree * 2);
+    	freeIds[nFree++] = id;
+    	return true;
+    }
+    
+    @Override public Set<L> vertices() {
+    	assert checkRep();
+    	return new HashSet<>(ids.keySet());
+    }
+    
+    @Override public Map<L, Integer> sources(L target) {
+    	assert checkRep();
+    	Integer t = ids.get(target);
+    	return t == null ? new HashMap<>() : labelled(in[t]);
+    }
+    
+    @Override public Map<L, Integer> targets(L source) {
+    	assert checkRep();
+    	Integer s = ids.get(source);
+    	return s == null ? new HashMap<>() : labelled(out[s]);
+    }
+    
+    /**
+     * Copy an int map of edges into a map keyed by label.
+     * @param edges edges of a vertex by id, or null if it has none
+     */
+    private Map<L, Integer> labelled(IntIntMap edges) {
+    	Map<L, Integer> result = new HashMap<>();
+    	if (edges != null)
+    		for (int slot = 0; slot < edges.capacity(); slot++) {
+    			int id = edges.keyAt(slot);
+    			if (id >= 0)
+    				result.put(labels.get(id), edges.valueAt(slot));
+    		}
+    	return result;
+    }
+    
+    @Override public String toString() {
+    	assert checkRep();
+    	StringBuilder sb = new StringBuilder("IntAdjacencyGraph:");
+    	sb.append("vertices={");
+    	ids.keySet().forEach((v) -> sb.append(v + ","));
+    	sb.append("} edges={");
+    	ids.forEach((s, id) -> labelled(out[id]).forEach(
+    			(t, w) -> sb.append(s + "->" + t + "=" + w + ",")));
+    	return sb.append("}").toString();
+    }
+    
+}
@@ -0,0 +1,179 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+/**
+ * A map from non-negative int keys to positive int values, stored as
+ * interleaved key/value pairs in one primitive array with open addressing
+ * and linear probing, so that no keys or values are boxed.
+ * Mutable; internal to the rep of graphs keyed by int vertex ids.
+ */
+class IntIntMap {
+    
+    private static final int EMPTY = -1;
+    private static final int MIN_CAPACITY = 4;
+    
+    // Slot i holds its key at table[2i] and its value at table[2i + 1]
+    private int[] table;
+    private int size = 0;
+    
+    // Abstraction function:
+    //   AF(r) = { r.table[2i]: r.table[2i+1] for all slots i
+    //             where r.table[2i] != EMPTY }
+    // Representation invariant:
+    //   the number of slots is a power of two >= MIN_CAPACITY
+    //   size is the number of non-EMPTY keys, and size <= 3/4 of the slots
+    //   every key >= 0 and every value at a non-EMPTY key > 0
+    //   each key is reachable by probing forward from its home slot
+    //   without crossing an EMPTY slot
+    // Safety from rep exposure:
+    //   table is never returned
+    
+    /**
+     * Create an empty map.
+     */
+    IntIntMap() {
+    	table = emptyTable(MIN_CAPACITY);
+    }
+    
+    private static int[] emptyTable(int capacity) {
+    	int[] table = new int[capacity * 2];
+    	for (int i = 0; i < table.length; i += 2)
+    		table[i] = EMPTY;
+    	return table;
+    }
+    
+    boolean checkRep() {
+    	int n = 0;
+    	for (int i = 0; i < table.length; i += 2)
+    		if (table[i] != EMPTY) {
+    			if (table[i] < 0 || table[i + 1] <= 0)
+    				return false;
+    			n++;
+    		}
+    	return n == size && size <= capacity() / 4 * 3;
+    }
+    
+    private int slot(int key) {
+    	int h = key * 0x9E3779B9;
+    	return (h ^ (h >>> 16)) & (capacity() - 1);
+    }
+    
+    /**
+     * @param key a key >= 0
+     * @return the value mapped to key, or 0 if there is none
+     */
+    int get(int key) {
+    	int mask = capacity() - 1;
+    	for (int i = slot(key); table[2 * i] != EMPTY; i = (i + 1) & mask)
+    		if (table[2 * i] == key)
+    			return table[2 * i + 1];
+    	return 0;
+    }
+    
+    /**
+     * Map a key to a value, replacing any previous value.
+     * @param key a key >= 0
+     * @param value a value > 0
+     * @return the previous value mapped to key, or 0 if there was none
+     */
+    int put(int key, int value) {
+    	int mask = capacity() - 1;
+    	int i = slot(key);
+    	for (; table[2 * i] != EMPTY; i = (i + 1) & mask)
+    		if (table[2 * i] == key) {
+    			int old = table[2 * i + 1];
+    			table[2 * i + 1] = value;
+    			return old;
+    		}
+    	table[2 * i] = key;
+    	table[2 * i + 1] = value;
+    	if (++size > capacity() / 4 * 3)
+    		resize(capacity() * 2);
+    	return 0;
+    }
+    
+    /**
+     * Remove a key and its value, if present.
+     * @param key a key >= 0
+     * @return the value that was mapped to key, or 0 if there was none
+     */
+    int remove(int key) {
+    	int mask = capacity() - 1;
+    	int i = slot(key);
+    	for (; table[2 * i] != key; i = (i + 1) & mask)
+    		if (table[2 * i] == EMPTY)
+    			return 0;
+    	int old = table[2 * i + 1];
+    	// Shift later entries of the probe run back into the gap
+    	for (int j = (i + 1) & mask; table[2 * j] != EMPTY; j = (j + 1) & mask) {
+    		int home = slot(table[2 * j]);
+    		if (((j - home) & mask) >= ((j - i) & mask)) {
+    			table[2 * i] = table[2 * j];
+    			table[2 * i + 1] = table[2 * j + 1];
+    			i = j;
+    		}
+    	}
+    	table[2 * i] = EMPTY;
+    	table[2 * i + 1] = 0;
+    	size--;
+    	if (size < capacity() / 8 && capacity() > MIN_CAPACITY)
+    		resize(capacity() / 2);
+    	return old;
+    }
+    
+    /**
+     * @return the number of keys in this map
+     */
+    int size() {
+    	return size;
+    }
+    
+    /**
+     * @return the number of slots; keyAt() and valueAt() accept indices in
+     *         [0, capacity())
+     */
+    int capacity() {
+    	return table.length >> 1;
+    }
+    
+    /**
+     * @param slot a slot index in [0, capacity())
+     * @return the key stored in slot, or -1 if it is empty
+     */
+    int keyAt(int slot) {
+    	return table[2 * slot];
+    }
+    
+    /**
+     * @param slot a slot index in [0, capacity()) holding a key
+     * @return the value stored in slot
+     */
+    int valueAt(int slot) {
+    	return table[2 * slot + 1];
+    }
+    
+    private void resize(int capacity) {
+    	int[] old = table;
+    	table = emptyTable(capacity);
+    	int mask = capacity - 1;
+    	for (int i = 0; i < old.length; i += 2)
+    		if (old[i] != EMPTY) {
+    			int j = slot(old[i]);
+    			while (table[2 * j] != EMPTY)
+    				j = (j + 1) & mask;
+    			table[2 * j] = old[i];
+    			table[2 * j + 1] = old[i + 1];
+    		}
+    }
+    
+    @Override public String toString() {
+    	StringBuilder sb = new StringBuilder("{");
+    	for (int i = 0; i < table.length; i += 2)
+    		if (table[i] != EMPTY)
+    			sb.append(table[i]).append('=').append(table[i + 1]).append(", ");
+    	return sb.append("}").toString();
+    }
+    
+}
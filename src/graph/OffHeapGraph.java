@@ -0,0 +1,206 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An implementation of Graph for very large graphs, which keeps its edges
+ * outside the Java heap.
+ * 
+ * <p>Like IntAdjacencyGraph, each label is interned to a dense int id when
+ * its vertex is added, and the outgoing and incoming edges of each vertex
+ * are open-addressed maps from ids to weights. Here those maps live in
+ * direct ByteBuffers (OffHeapIntMaps), so only the label dictionary is on
+ * the heap: the heap, and the work of the garbage collector, grow with the
+ * number of vertices but not with the number of edges.
+ * 
+ * <p>The off-heap memory is released when the graph is garbage collected.
+ */
+public class OffHeapGraph<L> implements Graph<L> {
+    
+    private final Map<L, Integer> ids = new HashMap<>();
+    private final List<L> labels = new ArrayList<>();
+    // Outgoing edges of id v are map 2v, incoming edges map 2v + 1
+    private final OffHeapIntMaps edges = new OffHeapIntMaps(32);
+    // Ids of removed vertices, reused by later additions
+    private int[] freeIds = new int[16];
+    private int nFree = 0;
+    
+    // Abstraction function:
+    //   AF(r) = an ordered pair (V, E)
+    //      where V = r.ids.keySet()
+    //      and E = { (r.labels[s], r.labels[t]) for all s, t where
+    //                r.edges.get(2s, t) > 0 }
+    //      and there exists a W such that
+    //      W(r.labels[s], r.labels[t]) = r.edges.get(2s, t) for all edges.
+    // Representation invariant:
+    //   - ids and labels are inverse: labels[ids[l]] == l for all l in ids,
+    //     and labels[i] is null exactly for the ids in freeIds[0..nFree)
+    //   - edges.get(2s, t) == edges.get(2t + 1, s) for all ids s, t; both
+    //     are 0 unless s and t are live ids
+    //   - edges has at least 2 * labels.size() maps
+    // Safety from rep exposure:
+    //   - ids, labels and edges are never returned
+    //   - vertices(), sources(), targets() return copies
+    
+    // Default constructor will be fine here
+    
+    private boolean checkRep() {
+    	if (ids.size() + nFree != labels.size())
+    		return false;
+    	for (Map.Entry<L, Integer> e: ids.entrySet())
+    		if (!e.getKey().equals(labels.get(e.getValue())))
+    			return false;
+    	for (int s = 0; s < labels.size(); s++) {
+    		int out = 2 * s;
+    		if (!edges.checkRep(out) || !edges.checkRep(out + 1))
+    			return false;
+    		if (labels.get(s) == null && edges.size(out) + edges.size(out + 1) > 0)
+    			return false;
+    		for (int slot = 0; slot < edges.capacity(out); slot++) {
+    			int t = edges.keyAt(out, slot);
+    			if (t >= 0 && (labels.get(t) == null
+    					|| edges.get(2 * t + 1, s) != edges.valueAt(out, slot)))
+    				return false;
+    		}
+    	}
+    	return true;
+    }
+    
+    /**
+     * Get the id of a label, interning it as a new vertex if it is absent.
+     */
+    private int intern(L label) {
+    	Integer id = ids.get(label);
+    	if (id != null)
+    		return id;
+    	int newId;
+    	if (nFree > 0) {
+    		newId = freeIds[--nFree];
+    		labels.set(newId, label);
+    	} else {
+    		newId = labels.size();
+    		labels.add(label);
+    		edges.ensureMaps(2 * newId + 2);
+    	}
+    	ids.put(label, newId);
+    	return newId;
+    }
+    
+    @Override public boolean add(L vertex) {
+    	assert checkRep();
+    	if (ids.containsKey(vertex))
+    		return false;
+    	intern(vertex);
+    	return true;
+    }
+    
+    @Override public int set(L source, L target, int weight) {
+    	assert checkRep();
+    	if (weight < 0)
+    		throw new IllegalArgumentException("Requires weight >= 0");
+    	if (weight == 0) {
+    		Integer s = ids.get(source), t = ids.get(target);
+    		if (s == null || t == null)
+    			return 0;
+    		int old = edges.remove(2 * s, t);
+    		if (old != 0)
+    			edges.remove(2 * t + 1, s);
+    		return old;
+    	}
+    	int s = intern(source), t = intern(target);
+    	edges.put(2 * t + 1, s, weight);
+    	return edges.put(2 * s, t, weight);
+    }
+    
+    @Override public void set(L source, L target) {
+    	assert checkRep();
+    	int s = intern(source), t = intern(target);
+    	int weight = edges.get(2 * s, t) + 1;
+    	edges.put(2 * t + 1, s, weight);
+    	edges.put(2 * s, t, weight);
+    }
+    
+    @Override public boolean remove(L vertex) {
+    	assert checkRep();
+    	Integer id = ids.remove(vertex);
+    	if (id == null)
+    		return false;
+    	int out = 2 * id, in = 2 * id + 1;
+    	for (int slot = 0; slot < edges.capacity(out); slot++) {
+    		int t = edges.keyAt(out, slot);
+    		if (t >= 0 && t != id)
+    			edges.remove(2 * t + 1, id);
+    	}
+    	for (int slot = 0; slot < edges.capacity(in); slot++) {
+    		int s = edges.keyAt(in, slot);
+    		if (s >= 0 && s != id)
+    			edges.remove(2 * s, id);
+    	}
+    	edges.clear(out);
+    	edges.clear(in);
+    	labels.set(id, null);
+    	if (nFree == freeIds.length)
+    		freeIds = Arrays.copyOf(freeIds, nFree * 2);
+    	freeIds[nFree++] = id;
+    	return true;
+    }
+    
+    @Override public Set<L> vertices() {
+    	assert checkRep();
+    	return new HashSet<>(ids.keySet());
+    }
+    
+    @Override public Map<L, Integer> sources(L target) {
+    	assert checkRep();
+    	Integer t = ids.get(target);
+    	return t == null ? new HashMap<>() : labelled(2 * t + 1);
+    }
+    
+    @Override public Map<L, Integer> targets(L source) {
+    	assert checkRep();
+    	Integer s = ids.get(source);
+    	return s == null ? new HashMap<>() : labelled(2 * s);
+    }
+    
+    /**
+     * Copy an off-heap map of edges into a map keyed by label.
+     * @param map number of the map of edges in edges
+     */
+    private Map<L, Integer> labelled(int map) {
+    	Map<L, Integer> result = new HashMap<>();
+    	for (int slot = 0; slot < edges.capacity(map); slot++) {
+    		int id = edges.keyAt(map, slot);
+    		if (id >= 0)
+    			result.put(labels.get(id), edges.valueAt(map, slot));
+    	}
+    	return result;
+    }
+    
+    /**
+     * @return the number of bytes of off-heap memory held by this graph
+     */
+    public long offHeapBytes() {
+    	return edges.allocatedBytes();
+    }
+    
+    @Override public String toString() {
+    	assert checkRep();
+    	StringBuilder sb = new StringBuilder("OffHeapGraph:");
+    	sb.append("vertices={");
+    	ids.keySet().forEach((v) -> sb.append(v + ","));
+    	sb.append("} edges={");
+    	ids.forEach((s, id) -> labelled(2 * id).forEach(
+    			(t, w) -> sb.append(s + "->" + t + "=" + w + ",")));
+    	return sb.append("}").toString();
+    }
+    
+}
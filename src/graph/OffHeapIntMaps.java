@@ -0,0 +1,384 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * A numbered collection of maps from non-negative int keys to positive int
+ * values, like IntIntMap, but stored outside the Java heap in direct
+ * ByteBuffers. Each map is an open-addressed table of 8-byte key/value
+ * slots, allocated as a block from large shared chunks, so the garbage
+ * collector sees a few buffers however many maps and entries there are.
+ * 
+ * <p>Blocks have a power-of-two number of slots. A map grows into a new
+ * block of twice the size and returns its old block to a free list for
+ * that size, from which later blocks of the same size are taken. A block
+ * larger than a chunk gets a chunk of its own, which is dropped when the
+ * block is freed.
+ * Mutable; internal to the rep of OffHeapGraph.
+ */
+class OffHeapIntMaps {
+    
+    private static final int EMPTY = -1;
+    private static final int NONE = -1;
+    private static final int SLOT_BYTES = 8;
+    // Each map's header: chunk and slot offset of its block, and its size
+    // and log2 of its capacity packed as (size << LOG_BITS) | log2
+    private static final int HEADER_BYTES = 12;
+    private static final int LOG_BITS = 5;
+    private static final int MIN_LOG_CAPACITY = 1;
+    
+    /**
+     * Number of slots in each shared chunk; a block of more slots gets a
+     * chunk of its own.
+     */
+    static final int CHUNK_SLOTS = 1 << 20;
+    
+    private ByteBuffer headers;
+    private int maps = 0;
+    private ByteBuffer[] chunks = new ByteBuffer[4];
+    private int nChunks = 0;
+    // Slots used so far in the last shared chunk, or CHUNK_SLOTS if none
+    private int chunkUsed = CHUNK_SLOTS;
+    private int sharedChunk = NONE;
+    // Per log2 capacity: the first free block, as (chunk << 32) | offset,
+    // or -1; each free block holds the next one in its first slot
+    private final long[] freeBlocks = new long[32];
+    private long allocatedBytes = 0;
+    
+    // Abstraction function:
+    //   AF(r) = maps 0 .. r.maps-1, where map m is { key(s): value(s) for
+    //           all slots s of m's block with key(s) != EMPTY }, or empty
+    //           if m's header has chunk NONE
+    // Representation invariant:
+    //   a map with a block has size >= 1 and a capacity that is a power
+    //   of two >= 2^MIN_LOG_CAPACITY, with size <= 3/4 of its capacity;
+    //   a map without a block has size 0
+    //   every key >= 0 and every value at a non-EMPTY key > 0
+    //   each key is reachable by probing forward from its home slot
+    //   without crossing an EMPTY slot
+    //   the blocks of the maps and the free blocks do not overlap
+    // Safety from rep exposure:
+    //   buffers are never returned
+    
+    /**
+     * Create a collection of empty maps.
+     * @param maps initial number of maps, >= 0
+     */
+    OffHeapIntMaps(int maps) {
+    	headers = ByteBuffer.allocateDirect(0);
+    	Arrays.fill(freeBlocks, NONE);
+    	ensureMaps(maps);
+    }
+    
+    /**
+     * Make sure there are at least n maps; new maps are empty.
+     * @param n number of maps needed
+     */
+    void ensureMaps(int n) {
+    	if (n <= maps)
+    		return;
+    	int capacity = headers.capacity() / HEADER_BYTES;
+    	if (n > capacity) {
+    		ByteBuffer grown = allocate(Math.max(n, capacity * 2) * (long) HEADER_BYTES);
+    		grown.put((ByteBuffer) headers.duplicate().clear());
+    		allocatedBytes -= headers.capacity();
+    		headers = grown;
+    	}
+    	for (int m = maps; m < n; m++)
+    		setHeader(m, NONE, 0, 0, 0);
+    	maps = n;
+    }
+    
+    private ByteBuffer allocate(long bytes) {
+    	if (bytes > Integer.MAX_VALUE)
+    		throw new IllegalStateException("off-heap block too large: " + bytes + " bytes");
+    	allocatedBytes += bytes;
+    	return ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder());
+    }
+    
+    private int chunkOf(int m) {
+    	return headers.getInt(m * HEADER_BYTES);
+    }
+    
+    private int offsetOf(int m) {
+    	return headers.getInt(m * HEADER_BYTES + 4);
+    }
+    
+    /**
+     * @param m a map number
+     * @return the number of keys in map m
+     */
+    int size(int m) {
+    	return headers.getInt(m * HEADER_BYTES + 8) >>> LOG_BITS;
+    }
+    
+    /**
+     * @param m a map number
+     * @return the number of slots of map m; keyAt() and valueAt() accept
+     *         indices in [0, capacity(m))
+     */
+    int capacity(int m) {
+    	if (chunkOf(m) == NONE)
+    		return 0;
+    	return 1 << (headers.getInt(m * HEADER_BYTES + 8) & ((1 << LOG_BITS) - 1));
+    }
+    
+    private void setHeader(int m, int chunk, int offset, int size, int logCapacity) {
+    	int at = m * HEADER_BYTES;
+    	headers.putInt(at, chunk);
+    	headers.putInt(at + 4, offset);
+    	headers.putInt(at + 8, (size << LOG_BITS) | logCapacity);
+    }
+    
+    /**
+     * @param m a map number
+     * @param slot a slot index in [0, capacity(m))
+     * @return the key stored in slot, or -1 if it is empty
+     */
+    int keyAt(int m, int slot) {
+    	return chunks[chunkOf(m)].getInt((offsetOf(m) + slot) * SLOT_BYTES);
+    }
+    
+    /**
+     * @param m a map number
+     * @param slot a slot index in [0, capacity(m)) holding a key
+     * @return the value stored in slot
+     */
+    int valueAt(int m, int slot) {
+    	return chunks[chunkOf(m)].getInt((offsetOf(m) + slot) * SLOT_BYTES + 4);
+    }
+    
+    /**
+     * @return the number of bytes of direct buffers held by these maps
+     */
+    long allocatedBytes() {
+    	return allocatedBytes;
+    }
+    
+    private static int home(int key, int mask) {
+    	int h = key * 0x9E3779B9;
+    	return (h ^ (h >>> 16)) & mask;
+    }
+    
+    /**
+     * @param m a map number
+     * @param key a key >= 0
+     * @return the value mapped to key in map m, or 0 if there is none
+     */
+    int get(int m, int key) {
+    	int chunk = chunkOf(m);
+    	if (chunk == NONE)
+    		return 0;
+    	ByteBuffer block = chunks[chunk];
+    	int base = offsetOf(m) * SLOT_BYTES;
+    	int mask = capacity(m) - 1;
+    	for (int i = home(key, mask); ; i = (i + 1) & mask) {
+    		int k = block.getInt(base + i * SLOT_BYTES);
+    		if (k == key)
+    			return block.getInt(base + i * SLOT_BYTES + 4);
+    		if (k == EMPTY)
+    			return 0;
+    	}
+    }
+    
+    /**
+     * Map a key to a value in map m, replacing any previous value.
+     * @param m a map number
+     * @param key a key >= 0
+     * @param value a value > 0
+     * @return the previous value mapped to key, or 0 if there was none
+     */
+    int put(int m, int key, int value) {
+    	if (chunkOf(m) == NONE) {
+    		long block = allocateBlock(MIN_LOG_CAPACITY);
+    		setHeader(m, (int) (block >>> 32), (int) block, 0, MIN_LOG_CAPACITY);
+    	}
+    	ByteBuffer block = chunks[chunkOf(m)];
+    	int base = offsetOf(m) * SLOT_BYTES;
+    	int mask = capacity(m) - 1;
+    	int i = home(key, mask);
+    	for (int k; (k = block.getInt(base + i * SLOT_BYTES)) != EMPTY; i = (i + 1) & mask)
+    		if (k == key) {
+    			int old = block.getInt(base + i * SLOT_BYTES + 4);
+    			block.putInt(base + i * SLOT_BYTES + 4, value);
+    			return old;
+    		}
+    	block.putInt(base + i * SLOT_BYTES, key);
+    	block.putInt(base + i * SLOT_BYTES + 4, value);
+    	int size = size(m) + 1;
+    	int logCapacity = Integer.numberOfTrailingZeros(mask + 1);
+    	setHeader(m, chunkOf(m), offsetOf(m), size, logCapacity);
+    	if (size * 4 > (mask + 1) * 3)
+    		resize(m, logCapacity + 1);
+    	return 0;
+    }
+    
+    /**
+     * Remove a key and its value from map m, if present.
+     * @param m a map number
+     * @param key a key >= 0
+     * @return the value that was mapped to key, or 0 if there was none
+     */
+    int remove(int m, int key) {
+    	if (chunkOf(m) == NONE)
+    		return 0;
+    	ByteBuffer block = chunks[chunkOf(m)];
+    	int base = offsetOf(m) * SLOT_BYTES;
+    	int mask = capacity(m) - 1;
+    	int i = home(key, mask);
+    	for (int k; (k = block.getInt(base + i * SLOT_BYTES)) != key; i = (i + 1) & mask)
+    		if (k == EMPTY)
+    			return 0;
+    	int old = block.getInt(base + i * SLOT_BYTES + 4);
+    	// Shift later entries of the probe run back into the gap
+    	for (int j = (i + 1) & mask, k; (k = block.getInt(base + j * SLOT_BYTES)) != EMPTY;
+    			j = (j + 1) & mask) {
+    		if (((j - home(k, mask)) & mask) >= ((j - i) & mask)) {
+    			block.putInt(base + i * SLOT_BYTES, k);
+    			block.putInt(base + i * SLOT_BYTES + 4, block.getInt(base + j * SLOT_BYTES + 4));
+    			i = j;
+    		}
+    	}
+    	block.putInt(base + i * SLOT_BYTES, EMPTY);
+    	block.putInt(base + i * SLOT_BYTES + 4, 0);
+    	
+    	int size = size(m) - 1;
+    	int logCapacity = Integer.numberOfTrailingZeros(mask + 1);
+    	if (size == 0)
+    		clear(m);
+    	else {
+    		setHeader(m, chunkOf(m), offsetOf(m), size, logCapacity);
+    		if (size * 8 < mask + 1 && logCapacity > MIN_LOG_CAPACITY)
+    			resize(m, logCapacity - 1);
+    	}
+    	return old;
+    }
+    
+    /**
+     * Remove every key of map m, freeing its block.
+     * @param m a map number
+     */
+    void clear(int m) {
+    	int chunk = chunkOf(m);
+    	if (chunk == NONE)
+    		return;
+    	freeBlock(chunk, offsetOf(m), Integer.numberOfTrailingZeros(capacity(m)));
+    	setHeader(m, NONE, 0, 0, 0);
+    }
+    
+    private void resize(int m, int logCapacity) {
+    	int oldChunk = chunkOf(m), oldOffset = offsetOf(m);
+    	int oldCapacity = capacity(m), size = size(m);
+    	long address = allocateBlock(logCapacity);
+    	int chunk = (int) (address >>> 32), offset = (int) address;
+    	ByteBuffer from = chunks[oldChunk], to = chunks[chunk];
+    	int mask = (1 << logCapacity) - 1;
+    	for (int s = 0; s < oldCapacity; s++) {
+    		int key = from.getInt((oldOffset + s) * SLOT_BYTES);
+    		if (key == EMPTY)
+    			continue;
+    		int i = home(key, mask);
+    		while (to.getInt((offset + i) * SLOT_BYTES) != EMPTY)
+    			i = (i + 1) & mask;
+    		to.putInt((offset + i) * SLOT_BYTES, key);
+    		to.putInt((offset + i) * SLOT_BYTES + 4,
+    				from.getInt((oldOffset + s) * SLOT_BYTES + 4));
+    	}
+    	freeBlock(oldChunk, oldOffset, Integer.numberOfTrailingZeros(oldCapacity));
+    	setHeader(m, chunk, offset, size, logCapacity);
+    }
+    
+    /**
+     * Allocate a block of empty slots.
+     * @return the chunk and slot offset of the block, as (chunk << 32) | offset
+     */
+    private long allocateBlock(int logCapacity) {
+    	int slots = 1 << logCapacity;
+    	long address;
+    	if (freeBlocks[logCapacity] != NONE) {
+    		address = freeBlocks[logCapacity];
+    		ByteBuffer chunk = chunks[(int) (address >>> 32)];
+    		int at = (int) address * SLOT_BYTES;
+    		int nextChunk = chunk.getInt(at), nextOffset = chunk.getInt(at + 4);
+    		freeBlocks[logCapacity] = nextChunk == NONE ? NONE
+    				: ((long) nextChunk << 32) | nextOffset;
+    	} else if (slots > CHUNK_SLOTS) {
+    		address = (long) addChunk(slots) << 32;
+    	} else {
+    		if (chunkUsed + slots > CHUNK_SLOTS) {
+    			sharedChunk = addChunk(CHUNK_SLOTS);
+    			chunkUsed = 0;
+    		}
+    		address = ((long) sharedChunk << 32) | chunkUsed;
+    		chunkUsed += slots;
+    	}
+    	ByteBuffer chunk = chunks[(int) (address >>> 32)];
+    	int offset = (int) address;
+    	for (int s = 0; s < slots; s++) {
+    		chunk.putInt((offset + s) * SLOT_BYTES, EMPTY);
+    		chunk.putInt((offset + s) * SLOT_BYTES + 4, 0);
+    	}
+    	return address;
+    }
+    
+    private int addChunk(int slots) {
+    	for (int c = 0; c < nChunks; c++)
+    		if (chunks[c] == null) {
+    			chunks[c] = allocate((long) slots * SLOT_BYTES);
+    			return c;
+    		}
+    	if (nChunks == chunks.length)
+    		chunks = Arrays.copyOf(chunks, nChunks * 2);
+    	chunks[nChunks] = allocate((long) slots * SLOT_BYTES);
+    	return nChunks++;
+    }
+    
+    private void freeBlock(int chunk, int offset, int logCapacity) {
+    	if (1 << logCapacity > CHUNK_SLOTS) {
+    		// a chunk of its own; its memory is released when the buffer
+    		// is collected
+    		allocatedBytes -= chunks[chunk].capacity();
+    		chunks[chunk] = null;
+    		return;
+    	}
+    	long next = freeBlocks[logCapacity];
+    	ByteBuffer block = chunks[chunk];
+    	block.putInt(offset * SLOT_BYTES, next == NONE ? NONE : (int) (next >>> 32));
+    	block.putInt(offset * SLOT_BYTES + 4, (int) next);
+    	freeBlocks[logCapacity] = ((long) chunk << 32) | offset;
+    }
+    
+    /**
+     * @param m a map number
+     * @return true iff map m satisfies the rep invariant
+     */
+    boolean checkRep(int m) {
+    	if (chunkOf(m) == NONE)
+    		return size(m) == 0;
+    	int capacity = capacity(m), n = 0;
+    	int mask = capacity - 1;
+    	for (int s = 0; s < capacity; s++) {
+    		int key = keyAt(m, s);
+    		if (key == EMPTY)
+    			continue;
+    		if (key < 0 || valueAt(m, s) <= 0)
+    			return false;
+    		for (int i = home(key, mask); i != s; i = (i + 1) & mask)
+    			if (keyAt(m, i) == EMPTY)
+    				return false;
+    		n++;
+    	}
+    	return n == size(m) && n >= 1 && n * 4 <= capacity * 3
+    			&& capacity >= 1 << MIN_LOG_CAPACITY;
+    }
+    
+    @Override public String toString() {
+    	return "OffHeapIntMaps@{" + maps + " maps, " + allocatedBytes + " bytes}";
+    }
+    
+}
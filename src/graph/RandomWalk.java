@@ -0,0 +1,251 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+
+/**
+ * A weighted random walk over a snapshot of a Graph: from each vertex, the
+ * walk follows an outgoing edge chosen with probability proportional to its
+ * weight. From a vertex with no outgoing edges, the walk continues at a
+ * vertex chosen uniformly at random.
+ * 
+ * <p>Each vertex's edges are compiled into an alias table (Vose's alias
+ * method), so each step costs two random numbers and no search, however
+ * many edges the vertex has. The tables use exact integer arithmetic, so
+ * edge probabilities are exactly proportional to their weights.
+ * 
+ * <p>Walks draw all their randomness from a caller's SplittableRandom, so
+ * a walk is reproduced exactly by a random with the same seed. RandomWalk
+ * is immutable and can be shared by threads that each use their own
+ * random.
+ */
+public final class RandomWalk<L> {
+    
+    private final List<L> labels;
+    private final Map<L, Integer> ids;
+    private final int[] offsets;
+    private final int[] targets;
+    private final long[] totals;
+    private final long[] thresholds;
+    private final int[] aliases;
+    
+    // Abstraction function:
+    //   AF(r) = the walk over the graph with vertices r.labels, in which
+    //           from vertex v with d = offsets[v+1] - offsets[v] > 0 edges,
+    //           the walk picks slot k in [offsets[v], offsets[v+1])
+    //           uniformly, then a uniform u in [0, totals[v]), and moves to
+    //           targets[k] if u < thresholds[k], else to targets[aliases[k]]
+    // Representation invariant:
+    //   - labels are distinct and ids[labels[i]] == i
+    //   - offsets has n + 1 non-decreasing elements from 0 to targets.length
+    //   - for every v with edges, totals[v] > 0 is the sum of its weights,
+    //     each threshold is in [0, totals[v]], each alias is a slot of v,
+    //     and the probability mass the table gives each slot k is exactly
+    //     d * weight of edge k
+    // Safety from rep exposure:
+    //   all fields are private and final, arrays are never returned, and
+    //   labels and ids are never returned
+    // Thread safety argument:
+    //   immutable; walks only read the rep
+    
+    private RandomWalk(List<L> labels, Map<L, Integer> ids, int[] offsets,
+    		int[] targets, long[] totals, long[] thresholds, int[] aliases) {
+    	this.labels = labels;
+    	this.ids = ids;
+    	this.offsets = offsets;
+    	this.targets = targets;
+    	this.totals = totals;
+    	this.thresholds = thresholds;
+    	this.aliases = aliases;
+    }
+    
+    /**
+     * Compile the random walk over a graph. Later changes to the graph are
+     * not reflected in the walk.
+     * 
+     * @param <L> type of vertex labels in the graph
+     * @param graph graph to walk; must not be modified during this call
+     * @return the weighted random walk over graph
+     */
+    public static <L> RandomWalk<L> of(Graph<L> graph) {
+    	List<L> labels = new ArrayList<>(graph.vertices());
+    	Map<L, Integer> ids = new HashMap<>();
+    	for (int i = 0; i < labels.size(); i++)
+    		ids.put(labels.get(i), i);
+    	
+    	int n = labels.size();
+    	int[] offsets = new int[n + 1];
+    	List<Map<L, Integer>> edges = new ArrayList<>(n);
+    	for (int v = 0; v < n; v++) {
+    		edges.add(graph.targets(labels.get(v)));
+    		offsets[v + 1] = offsets[v] + edges.get(v).size();
+    	}
+    	int[] targets = new int[offsets[n]];
+    	long[] totals = new long[n];
+    	long[] thresholds = new long[offsets[n]];
+    	int[] aliases = new int[offsets[n]];
+    	long[] weights = new long[offsets[n]];
+    	for (int v = 0; v < n; v++) {
+    		int k = offsets[v];
+    		for (Map.Entry<L, Integer> e: edges.get(v).entrySet()) {
+    			targets[k] = ids.get(e.getKey());
+    			weights[k] = e.getValue();
+    			totals[v] += e.getValue();
+    			k++;
+    		}
+    		buildAliasTable(offsets[v], offsets[v + 1], totals[v], weights,
+    				thresholds, aliases);
+    	}
+    	RandomWalk<L> walk = new RandomWalk<>(labels, ids, offsets, targets,
+    			totals, thresholds, aliases);
+    	assert walk.checkRep(weights);
+    	return walk;
+    }
+    
+    /**
+     * Fill the alias table of one vertex's slots [from, to), by Vose's
+     * method scaled to integers: slot k has weight w[k] * d out of a total
+     * of d * total, and each slot holds total of it.
+     */
+    private static void buildAliasTable(int from, int to, long total,
+    		long[] weights, long[] thresholds, int[] aliases) {
+    	int d = to - from;
+    	long[] scaled = new long[d];
+    	int[] small = new int[d], large = new int[d];
+    	int smalls = 0, larges = 0;
+    	for (int i = 0; i < d; i++) {
+    		scaled[i] = weights[from + i] * d;
+    		if (scaled[i] < total)
+    			small[smalls++] = i;
+    		else
+    			large[larges++] = i;
+    	}
+    	while (smalls > 0 && larges > 0) {
+    		int l = small[--smalls], g = large[--larges];
+    		thresholds[from + l] = scaled[l];
+    		aliases[from + l] = from + g;
+    		scaled[g] -= total - scaled[l];
+    		if (scaled[g] < total)
+    			small[smalls++] = g;
+    		else
+    			large[larges++] = g;
+    	}
+    	// whatever remains holds exactly total, so never uses its alias
+    	while (larges > 0) {
+    		int g = large[--larges];
+    		thresholds[from + g] = total;
+    		aliases[from + g] = from + g;
+    	}
+    	while (smalls > 0) {
+    		int l = small[--smalls];
+    		thresholds[from + l] = total;
+    		aliases[from + l] = from + l;
+    	}
+    }
+    
+    private boolean checkRep(long[] weights) {
+    	int n = labels.size();
+    	if (ids.size() != n || offsets.length != n + 1 || offsets[0] != 0
+    			|| offsets[n] != targets.length)
+    		return false;
+    	for (int v = 0; v < n; v++) {
+    		if (ids.get(labels.get(v)) != v || offsets[v + 1] < offsets[v])
+    			return false;
+    		int d = offsets[v + 1] - offsets[v];
+    		long[] mass = new long[d];
+    		for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+    			if (thresholds[k] < 0 || thresholds[k] > totals[v]
+    					|| aliases[k] < offsets[v] || aliases[k] >= offsets[v + 1])
+    				return false;
+    			mass[k - offsets[v]] += thresholds[k];
+    			mass[aliases[k] - offsets[v]] += totals[v] - thresholds[k];
+    		}
+    		for (int k = offsets[v]; k < offsets[v + 1]; k++)
+    			if (mass[k - offsets[v]] != weights[k] * d)
+    				return false;
+    	}
+    	return true;
+    }
+    
+    /**
+     * Walk the graph, passing each vertex visited to an action.
+     * 
+     * @param start first vertex of the walk
+     * @param length number of vertices in the walk, including start
+     * @param random source of randomness for the walk
+     * @param action called with each vertex of the walk in order
+     * @throws IllegalArgumentException if start is not a vertex of the
+     *         graph, or length < 0
+     */
+    public void walk(L start, int length, SplittableRandom random,
+    		Consumer<? super L> action) {
+    	Integer id = ids.get(start);
+    	if (id == null)
+    		throw new IllegalArgumentException("start is not a vertex: " + start);
+    	if (length < 0)
+    		throw new IllegalArgumentException("Requires length >= 0");
+    	int v = id;
+    	for (int i = 0; i < length; i++) {
+    		if (i > 0)
+    			v = step(v, random);
+    		action.accept(labels.get(v));
+    	}
+    }
+    
+    /**
+     * Walk the graph.
+     * 
+     * @param start first vertex of the walk
+     * @param length number of vertices in the walk, including start
+     * @param random source of randomness for the walk
+     * @return the vertices of the walk in order
+     * @throws IllegalArgumentException if start is not a vertex of the
+     *         graph, or length < 0
+     */
+    public List<L> walk(L start, int length, SplittableRandom random) {
+    	List<L> walk = new ArrayList<>(length);
+    	walk(start, length, random, walk::add);
+    	return walk;
+    }
+    
+    /**
+     * @return true if and only if the graph has no vertices
+     */
+    public boolean isEmpty() {
+    	return labels.isEmpty();
+    }
+    
+    /**
+     * Choose a vertex uniformly at random, for starting a walk.
+     * 
+     * @param random source of randomness
+     * @return a vertex of the graph
+     * @throws IllegalStateException if the graph has no vertices
+     */
+    public L randomVertex(SplittableRandom random) {
+    	if (labels.isEmpty())
+    		throw new IllegalStateException("graph has no vertices");
+    	return labels.get(random.nextInt(labels.size()));
+    }
+    
+    private int step(int v, SplittableRandom random) {
+    	int from = offsets[v], d = offsets[v + 1] - from;
+    	if (d == 0)
+    		return random.nextInt(labels.size());
+    	int k = from + random.nextInt(d);
+    	return random.nextLong(totals[v]) < thresholds[k] ? targets[k] : targets[aliases[k]];
+    }
+    
+    @Override public String toString() {
+    	return "RandomWalk@{" + labels.size() + " vertices, "
+    			+ targets.length + " edges}";
+    }
+    
+}
@@ -0,0 +1,91 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+/**
+ * Decides which checks of its rep invariant a graph runs, according to
+ * its ValidationMode.
+ * Mutable; internal to the rep of ConcreteEdgesGraph and
+ * ConcreteVerticesGraph, and only used when assertions are enabled.
+ */
+class RepValidator {
+    
+    // Whether assert statements run in this package
+    private static final boolean ASSERTIONS = RepValidator.class.desiredAssertionStatus();
+    
+    private final ValidationMode mode;
+    // Operations left to skip before the next sampled full check
+    private long skip = 0;
+    // Full checks requested so far
+    private long fullChecks = 0;
+    
+    // Abstraction function:
+    //   AF(r) = the validation policy r.mode, which has asked for
+    //           r.fullChecks full checks, and will next ask for one after
+    //           r.skip more operations in SAMPLED mode
+    // Representation invariant:
+    //   skip >= 0, fullChecks >= 0
+    // Safety from rep exposure:
+    //   fields are private and immutable or primitive
+    
+    /**
+     * Create a validator.
+     * @param mode how much of the rep to check
+     */
+    RepValidator(ValidationMode mode) {
+    	this.mode = mode;
+    }
+    
+    /**
+     * @return the validation mode of this validator
+     */
+    ValidationMode mode() {
+    	return mode;
+    }
+    
+    /**
+     * Decide whether an operation should check the whole rep, counting the
+     * operation toward the next sampled check.
+     * @param size number of vertices and edges in the graph
+     * @return true iff the operation should check the whole rep
+     */
+    boolean fullCheckDue(long size) {
+    	switch (mode) {
+    	case FULL:
+    		break;
+    	case SAMPLED:
+    		if (skip > 0) {
+    			skip--;
+    			return false;
+    		}
+    		skip = size / ValidationMode.SAMPLED_COST;
+    		break;
+    	default:
+    		return false;
+    	}
+    	fullChecks++;
+    	return true;
+    }
+    
+    /**
+     * @return the number of times fullCheckDue() has returned true
+     */
+    long fullChecks() {
+    	return fullChecks;
+    }
+    
+    /**
+     * @return true iff mutators should check the parts of the rep they
+     *         changed: the mode is INCREMENTAL and assertions are enabled,
+     *         so a mutator may keep what it needs for the check
+     */
+    boolean incremental() {
+    	return ASSERTIONS && mode == ValidationMode.INCREMENTAL;
+    }
+    
+    @Override public String toString() {
+    	return "RepValidator@{" + mode + "}";
+    }
+    
+}
@@ -0,0 +1,50 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+/**
+ * How much of its rep invariant a graph implementation checks when
+ * assertions are enabled (with the VM argument -ea). Without assertions,
+ * no checks run in any mode.
+ * 
+ * <p>Implementations that take a ValidationMode check their whole rep,
+ * which takes time proportional to the number of vertices and edges, in
+ * FULL mode, and less of it in the other modes.
+ */
+public enum ValidationMode {
+    
+    /**
+     * No checks; for measuring the cost of the other modes, or when a
+     * graph is too large to check at all.
+     */
+    OFF,
+    
+    /**
+     * The whole rep is checked by a fraction of operations, spaced so that
+     * the checks cost a constant amount of time per operation when
+     * averaged over many operations: after a check of a graph with n
+     * vertices and edges, the next n / SAMPLED_COST operations are not
+     * checked.
+     */
+    SAMPLED,
+    
+    /**
+     * Each mutator checks the invariant only where it changed the rep: the
+     * vertices it added, removed or changed edges of, and their edges. This
+     * costs time proportional to the degrees of those vertices.
+     */
+    INCREMENTAL,
+    
+    /**
+     * Every operation checks the whole rep. This is the default.
+     */
+    FULL;
+    
+    /**
+     * Average cost of the checks per operation in SAMPLED mode, in units
+     * of one vertex or edge checked.
+     */
+    public static final int SAMPLED_COST = 32;
+    
+}
@@ -0,0 +1,32 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+/**
+ * How a graph implementation returns the collections from
+ * {@link Graph#vertices()}, {@link Graph#sources(Object)} and
+ * {@link Graph#targets(Object)}.
+ * 
+ * <p>Either way the caller can never modify the graph through a returned
+ * collection.
+ */
+public enum ViewMode {
+    
+    /**
+     * Every call returns a fresh, mutable copy which the caller owns and
+     * which is unaffected by later changes to the graph. This is the
+     * default, and costs an allocation proportional to the size of the
+     * result on every call.
+     */
+    COPY,
+    
+    /**
+     * Every call returns an unmodifiable view backed directly by the rep,
+     * without copying. A view is only guaranteed to be accurate until the
+     * next mutation of the graph; callers that need to hold on to a result
+     * across mutations must copy it themselves.
+     */
+    VIEW;
+    
+}
@@ -0,0 +1,165 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts the adjacent pairs of distinct words in a UTF-8 (or ASCII) corpus
+ * file in parallel. The file is split into byte ranges which are read by
+ * separate MappedWordReaders on a ForkJoinPool; the counts of neighbouring
+ * ranges are merged along with the one pair of words that straddles their
+ * boundary, so the result is exactly that of reading the file in order.
+ */
+class AdjacencyCounter {
+    
+    /**
+     * Default number of bytes of the corpus read by a single task.
+     */
+    static final long DEFAULT_CHUNK_SIZE = 1 << 20;
+    
+    private final FileChannel channel;
+    private final long chunkSize;
+    
+    // Abstraction function:
+    //   AF(r) = a counter of the words in r.channel, splitting it into
+    //           ranges of r.chunkSize bytes
+    // Representation invariant:
+    //   chunkSize > 0
+    // Safety from rep exposure:
+    //   fields are never returned
+    // Thread safety argument:
+    //   tasks only share the channel, whose map() is thread-safe, and
+    //   each task reads into its own ByteVocabulary and counts
+    
+    /**
+     * @param channel readable channel of the corpus; not closed by this
+     * @param chunkSize number of bytes of the corpus read by a single task, > 0
+     */
+    AdjacencyCounter(FileChannel channel, long chunkSize) {
+    	if (chunkSize <= 0)
+    		throw new IllegalArgumentException("Requires chunkSize > 0");
+    	this.channel = channel;
+    	this.chunkSize = chunkSize;
+    }
+    
+    /**
+     * Count the word adjacencies of the corpus.
+     * 
+     * @param pool pool on which to run the counting tasks
+     * @return a map from each lower-case word w1 to a map from each
+     *         lower-case word w2 != w1 that follows w1 in the corpus to the
+     *         number of times it does so
+     * @throws IOException if the corpus cannot be read
+     */
+    Map<String, Map<String, Integer>> count(ForkJoinPool pool) throws IOException {
+    	long size = channel.size();
+    	long chunks = Math.max(1, (size + chunkSize - 1) / chunkSize);
+    	try {
+    		Counts counts = pool.invoke(new CountTask(0, chunks, size));
+    		Map<String, Map<String, Integer>> result = new HashMap<>();
+    		counts.pairs.forEach((w1, targets) -> {
+    			Map<String, Integer> weights = new HashMap<>();
+    			targets.forEach((w2, n) -> weights.put(w2, n[0]));
+    			result.put(w1, weights);
+    		});
+    		return result;
+    	} catch (UncheckedIOException e) {
+    		throw e.getCause();
+    	}
+    }
+    
+    /**
+     * Adjacency counts of a contiguous run of words in the corpus.
+     * Mutable; only used by one task at a time.
+     */
+    private static class Counts {
+    	String first = null;
+    	String last = null;
+    	final Map<String, Map<String, int[]>> pairs = new HashMap<>();
+    	
+    	void add(String w1, String w2, int n) {
+    		if (!w1.equals(w2))
+    			pairs.computeIfAbsent(w1, w -> new HashMap<>())
+    					.computeIfAbsent(w2, w -> new int[1])[0] += n;
+    	}
+    	
+    	void add(String word) {
+    		if (last != null)
+    			add(last, word, 1);
+    		else
+    			first = word;
+    		last = word;
+    	}
+    	
+    	/**
+    	 * @param later counts of the run of words immediately following this
+    	 *        run; not used afterwards
+    	 * @return the counts of both runs together
+    	 */
+    	Counts append(Counts later) {
+    		if (later.first == null)
+    			return this;
+    		if (first == null)
+    			return later;
+    		Counts into = pairs.size() >= later.pairs.size() ? this : later;
+    		Counts from = into == this ? later : this;
+    		from.pairs.forEach((w1, targets) -> targets.forEach(
+    				(w2, n) -> into.add(w1, w2, n[0])));
+    		into.add(last, later.first, 1);
+    		into.first = first;
+    		into.last = later.last;
+    		return into;
+    	}
+    }
+    
+    /**
+     * Counts the words starting in chunks [from, to) of the corpus.
+     */
+    private class CountTask extends RecursiveTask<Counts> {
+    	private static final long serialVersionUID = 1L;
+    	
+    	private final long from;
+    	private final long to;
+    	private final long size;
+    	
+    	CountTask(long from, long to, long size) {
+    		this.from = from;
+    		this.to = to;
+    		this.size = size;
+    	}
+    	
+    	@Override protected Counts compute() {
+    		if (to - from > 1) {
+    			long middle = (from + to) >>> 1;
+    			CountTask right = new CountTask(middle, to, size);
+    			right.fork();
+    			Counts left = new CountTask(from, middle, size).compute();
+    			return left.append(right.join());
+    		}
+    		long start = from * chunkSize;
+    		long end = Math.min(size, start + chunkSize);
+    		Counts counts = new Counts();
+    		try {
+    			int window = (int) Math.min(MappedWordReader.DEFAULT_WINDOW_SIZE,
+    					chunkSize + 4096);
+    			MappedWordReader words = new MappedWordReader(
+    					channel, start, end, window, new ByteVocabulary());
+    			String word;
+    			while ((word = words.next()) != null)
+    				counts.add(word);
+    		} catch (IOException e) {
+    			throw new UncheckedIOException(e);
+    		}
+    		return counts;
+    	}
+    }
+    
+}
@@ -0,0 +1,258 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * A bounded, thread-safe cache of bridge word lookups, evicting the least
+ * recently used word pair once it is full.
+ * Results with no bridge word are cached too, as Optional.empty().
+ * 
+ * <p>Each result belongs to the BridgeFinder it was found with, and is
+ * only returned to lookups in that same finder. When the affinity graph
+ * changes, invalidate() moves the cache to the new finder, dropping the
+ * results that may have changed and handing the rest over; so a lookup
+ * never mixes results from two graphs, even while the graph is replaced.
+ * 
+ * <p>Large caches are split into independently locked segments by the hash
+ * of the word pair, so that threads writing poems in parallel rarely wait
+ * for each other; each segment evicts its own least recently used pair.
+ * This class is internal to the rep of GraphPoet.
+ */
+class BridgeCache {
+    
+    // Most segments in a cache, and fewest pairs per segment
+    private static final int MAX_SEGMENTS = 16;
+    private static final int MIN_SEGMENT_CAPACITY = 256;
+    
+    private final int capacity;
+    private final Segment[] segments;
+    private volatile BridgeFinder finder;
+    
+    // Abstraction function:
+    //   AF(r) = a cache holding the bridge lookups in all r.segments, each
+    //           found with the BridgeFinder it is stored with, for lookups
+    //           in the current finder r.finder, and whose counters are the
+    //           sums of the segments' counters
+    // Representation invariant:
+    //   segments.length is a power of two, at most MAX_SEGMENTS
+    //   the capacities of the segments sum to capacity
+    //   every pair is held in segments[index(pair)]
+    //   finder != null
+    // Safety from rep exposure:
+    //   segments are never returned; keys and values are immutable, and
+    //   finders are only compared by identity
+    // Thread safety argument:
+    //   capacity and segments are final and never reassigned; each segment
+    //   guards its own rep with its lock; finder is volatile, and
+    //   invalidate() replaces it before it visits any segment, so a put()
+    //   that sees the old finder under a segment's lock happens before
+    //   that segment is visited and its result dropped or handed over
+    
+    /**
+     * Create an empty cache.
+     * @param capacity maximum number of word pairs to keep; 0 disables
+     *        caching, so that every lookup misses
+     * @param finder the finder of the current affinity graph
+     * @throws IllegalArgumentException if capacity < 0
+     */
+    BridgeCache(int capacity, BridgeFinder finder) {
+    	if (capacity < 0)
+    		throw new IllegalArgumentException("Requires capacity >= 0");
+    	this.capacity = capacity;
+    	this.finder = finder;
+    	int n = Integer.highestOneBit(Math.max(1,
+    			Math.min(MAX_SEGMENTS, capacity / MIN_SEGMENT_CAPACITY)));
+    	this.segments = new Segment[n];
+    	for (int i = 0; i < n; i++)
+    		segments[i] = new Segment(capacity / n + (i < capacity % n ? 1 : 0));
+    	assert checkRep();
+    }
+    
+    private boolean checkRep() {
+    	if (Integer.bitCount(segments.length) != 1 || segments.length > MAX_SEGMENTS)
+    		return false;
+    	int sum = 0;
+    	for (Segment segment: segments)
+    		sum += segment.capacity;
+    	return sum == capacity && finder != null;
+    }
+    
+    private Segment segment(WordPair pair) {
+    	int h = pair.hashCode();
+    	return segments[(h ^ (h >>> 16)) & (segments.length - 1)];
+    }
+    
+    /**
+     * Look up a word pair, counting a hit or a miss.
+     * @param pair the word pair
+     * @param finder the finder the lookup searches if the result is not
+     *        cached
+     * @return the cached result for pair found with finder, or null if
+     *         there is none
+     */
+    Optional<String> get(WordPair pair, BridgeFinder finder) {
+    	return segment(pair).get(pair, finder);
+    }
+    
+    /**
+     * Cache the result for a word pair, evicting the least recently used
+     * pair of its segment if the segment is full.
+     * @param pair the word pair
+     * @param bridge the bridge word between the pair, or Optional.empty()
+     *        if there is none
+     * @param finder the finder bridge was found with; if it is no longer
+     *        the current finder, bridge may be stale and is not cached
+     */
+    void put(WordPair pair, Optional<String> bridge, BridgeFinder finder) {
+    	segment(pair).put(pair, bridge, finder);
+    }
+    
+    /**
+     * Move this cache to the finder of a changed affinity graph. Every
+     * cached pair whose first word is in firsts or whose second word is in
+     * seconds is removed; the other pairs are kept as results of the new
+     * finder. Results found with the old finder are no longer cached.
+     * @param firsts first words of the pairs to remove
+     * @param seconds second words of the pairs to remove
+     * @param next the finder of the changed graph
+     */
+    void invalidate(Set<String> firsts, Set<String> seconds, BridgeFinder next) {
+    	finder = next;
+    	for (Segment segment: segments)
+    		segment.invalidate(firsts, seconds, next);
+    }
+    
+    /**
+     * Move this cache to the finder of a changed affinity graph, removing
+     * every cached pair. The counters are kept.
+     * @param next the finder of the changed graph
+     */
+    void invalidateAll(BridgeFinder next) {
+    	finder = next;
+    	for (Segment segment: segments)
+    		segment.clear();
+    }
+    
+    /**
+     * @return a snapshot of this cache's size and counters; segments are
+     *         read one at a time, so under concurrent use the counters
+     *         may not all be from the same instant
+     */
+    CacheStats stats() {
+    	int size = 0;
+    	long hits = 0, misses = 0, evictions = 0;
+    	for (Segment segment: segments) {
+    		synchronized (segment) {
+    			size += segment.entries.size();
+    			hits += segment.hits;
+    			misses += segment.misses;
+    			evictions += segment.evictions;
+    		}
+    	}
+    	return new CacheStats(capacity, size, hits, misses, evictions);
+    }
+    
+    @Override public String toString() {
+    	return "BridgeCache@{" + stats() + "}";
+    }
+    
+    /**
+     * A cached bridge lookup, and the finder it belongs to.
+     */
+    private static class Cached {
+    	
+    	final Optional<String> bridge;
+    	BridgeFinder finder;
+    	
+    	// Thread safety argument:
+    	//   finder is only read and written under the lock of the segment
+    	//   that holds this entry
+    	
+    	Cached(Optional<String> bridge, BridgeFinder finder) {
+    		this.bridge = bridge;
+    		this.finder = finder;
+    	}
+    }
+    
+    /**
+     * One independently locked part of a BridgeCache: a least recently used
+     * map with its own capacity and counters.
+     */
+    private class Segment {
+    	
+    	private final int capacity;
+    	private final Map<WordPair, Cached> entries;
+    	private long hits = 0;
+    	private long misses = 0;
+    	private long evictions = 0;
+    	
+    	// Abstraction function:
+    	//   AF(r) = the bridge lookups in r.entries, each for lookups in its
+    	//           entry's finder, least recently used first, after answering r.hits lookups, failing r.misses
+    	//           lookups and dropping r.evictions entries
+    	// Representation invariant:
+    	//   entries.size() <= capacity
+    	//   every entry's finder is non-null
+    	//   hits, misses, evictions >= 0
+    	// Thread safety argument:
+    	//   all access to the rep is guarded by this object's lock
+    	
+    	Segment(int capacity) {
+    		this.capacity = capacity;
+    		this.entries = new LinkedHashMap<WordPair, Cached>(16, 0.75f, true) {
+    			private static final long serialVersionUID = 1L;
+    			
+    			@Override protected boolean removeEldestEntry(
+    					Map.Entry<WordPair, Cached> eldest) {
+    				if (size() <= Segment.this.capacity)
+    					return false;
+    				++evictions;
+    				return true;
+    			}
+    		};
+    	}
+    	
+    	private boolean checkRep() {
+    		return entries.size() <= capacity
+    				&& hits >= 0 && misses >= 0 && evictions >= 0;
+    	}
+    	
+    	synchronized Optional<String> get(WordPair pair, BridgeFinder finder) {
+    		assert checkRep();
+    		Cached entry = entries.get(pair);
+    		if (entry == null || entry.finder != finder) {
+    			++misses;
+    			return null;
+    		}
+    		++hits;
+    		return entry.bridge;
+    	}
+    	
+    	synchronized void put(WordPair pair, Optional<String> bridge, BridgeFinder finder) {
+    		assert checkRep();
+    		if (capacity > 0 && finder == BridgeCache.this.finder)
+    			entries.put(pair, new Cached(bridge, finder));
+    	}
+    	
+    	synchronized void invalidate(Set<String> firsts, Set<String> seconds,
+    			BridgeFinder next) {
+    		assert checkRep();
+    		entries.keySet().removeIf((pair) ->
+    				firsts.contains(pair.first) || seconds.contains(pair.second));
+    		for (Cached entry: entries.values())
+    			entry.finder = next;
+    	}
+    	
+    	synchronized void clear() {
+    		assert checkRep();
+    		entries.clear();
+    	}
+    }
+    
+}
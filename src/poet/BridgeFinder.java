@@ -0,0 +1,186 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import graph.Graph;
+
+/**
+ * Finds the best bridge words between pairs of words in an affinity graph
+ * that is no longer modified.
+ * 
+ * <p>A bridge between a and b is a word x with edges a > x > b, scored by
+ * the total weight of both edges. Bridges are ranked by decreasing score,
+ * and bridges with equal scores by their natural String order, so the
+ * ranking does not depend on the iteration order of the graph.
+ * 
+ * <p>The edges out of and into each word are ranked by decreasing weight
+ * the first time the word is searched. A search walks the shorter of a's
+ * ranked out-edges and b's ranked in-edges, and stops as soon as no
+ * remaining word can beat the k-th best bridge found so far.
+ * The finder also holds the Vocabulary of the graph's words, so that the
+ * words of a poem are looked up in the same snapshot as their bridges.
+ * This class is internal to the rep of GraphPoet.
+ */
+class BridgeFinder {
+    
+    // Orders edges by decreasing weight, then by label
+    private static final Comparator<Map.Entry<String, Integer>> BY_RANK =
+    		Comparator.<Map.Entry<String, Integer>>comparingInt((e) -> -e.getValue())
+    		.thenComparing(Map.Entry::getKey);
+    
+    private final Graph<String> graph;
+    private final Vocabulary vocabulary;
+    private final ConcurrentMap<String, Ranked> rankedTargets = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Ranked> rankedSources = new ConcurrentHashMap<>();
+    
+    // Abstraction function:
+    //   AF(r) = the bridge words of the affinity graph r.graph
+    // Representation invariant:
+    //   vocabulary holds the lower-case vertices of graph
+    //   rankedTargets[v] holds graph.targets(v) ranked BY_RANK, and
+    //   rankedSources[v] holds graph.sources(v) ranked BY_RANK; neither
+    //   holds a word with no such edges
+    // Safety from rep exposure:
+    //   graph is only read; Ranked arrays are never returned
+    // Thread safety argument:
+    //   graph is never modified; the ranked maps are concurrent maps of
+    //   immutable values, and racing threads rank a word the same way
+    
+    /**
+     * Create a bridge finder.
+     * @param graph affinity graph with lower-case words; must not be
+     *        modified after this call
+     */
+    BridgeFinder(Graph<String> graph) {
+    	this.graph = graph;
+    	this.vocabulary = new Vocabulary(graph.vertices());
+    }
+    
+    /**
+     * @return the affinity graph searched by this finder
+     */
+    Graph<String> graph() {
+    	return graph;
+    }
+    
+    /**
+     * @return the vocabulary of the words of the affinity graph
+     */
+    Vocabulary vocabulary() {
+    	return vocabulary;
+    }
+    
+    /**
+     * Find the best bridge word between two words.
+     * @param a the lower-case source word
+     * @param b the lower-case word that will follow the bridge
+     * @return the highest-ranked bridge word between a and b, or null if
+     *         there is none
+     */
+    String best(String a, String b) {
+    	List<String> best = top(a, b, 1);
+    	return best.isEmpty() ? null : best.get(0);
+    }
+    
+    /**
+     * Find the best bridge words between two words.
+     * @param a the lower-case source word
+     * @param b the lower-case word that will follow the bridges
+     * @param k maximum number of bridges to return, k >= 1
+     * @return the at most k highest-ranked bridge words between a and b,
+     *         best first
+     */
+    List<String> top(String a, String b, int k) {
+    	Ranked out = ranked(rankedTargets, a, false);
+    	Ranked in = ranked(rankedSources, b, true);
+    	if (out.size() == 0 || in.size() == 0)
+    		return Collections.emptyList();
+    	
+    	// Walk the shorter ranked list, looking up the other edge weight of
+    	// each candidate; a candidate's score is at most its weight on the
+    	// walked side plus the largest weight on the other side
+    	boolean walkOut = out.size() <= in.size();
+    	Ranked walked = walkOut ? out : in;
+    	Map<String, Integer> other = walkOut ? graph.sources(b) : graph.targets(a);
+    	int otherMax = walkOut ? in.weights[0] : out.weights[0];
+    	
+    	List<String> words = new ArrayList<>(k);
+    	List<Integer> scores = new ArrayList<>(k);
+    	for (int i = 0; i < walked.size(); i++) {
+    		if (words.size() == k && walked.weights[i] + otherMax < scores.get(k - 1))
+    			break;
+    		Integer weight = other.get(walked.words[i]);
+    		if (weight == null)
+    			continue;
+    		insert(words, scores, k, walked.words[i], walked.weights[i] + weight);
+    	}
+    	return Collections.unmodifiableList(words);
+    }
+    
+    /**
+     * Insert a bridge into the ranked top-k lists words and scores, dropping
+     * the lowest-ranked bridge if there would be more than k.
+     */
+    private static void insert(List<String> words, List<Integer> scores, int k,
+    		String word, int score) {
+    	int i = words.size();
+    	while (i > 0 && (scores.get(i - 1) < score
+    			|| (scores.get(i - 1) == score && words.get(i - 1).compareTo(word) > 0)))
+    		i--;
+    	if (i == k)
+    		return;
+    	words.add(i, word);
+    	scores.add(i, score);
+    	if (words.size() > k) {
+    		words.remove(k);
+    		scores.remove(k);
+    	}
+    }
+    
+    private Ranked ranked(ConcurrentMap<String, Ranked> cache, String word,
+    		boolean sources) {
+    	Ranked ranked = cache.get(word);
+    	if (ranked == null) {
+    		ranked = new Ranked(sources ? graph.sources(word) : graph.targets(word));
+    		// words without edges, including words not in the graph, are not
+    		// cached, so that arbitrary input cannot grow the cache
+    		if (ranked.size() > 0)
+    			cache.putIfAbsent(word, ranked);
+    	}
+    	return ranked;
+    }
+    
+    /**
+     * Immutable edges of one word, ranked by decreasing weight.
+     */
+    private static class Ranked {
+    	
+    	final String[] words;
+    	final int[] weights;
+    	
+    	Ranked(Map<String, Integer> edges) {
+    		List<Map.Entry<String, Integer>> sorted = new ArrayList<>(edges.entrySet());
+    		sorted.sort(BY_RANK);
+    		words = new String[sorted.size()];
+    		weights = new int[sorted.size()];
+    		for (int i = 0; i < words.length; i++) {
+    			words[i] = sorted.get(i).getKey();
+    			weights[i] = sorted.get(i).getValue();
+    		}
+    	}
+    	
+    	int size() {
+    		return words.length;
+    	}
+    }
+    
+}
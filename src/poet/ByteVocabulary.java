@@ -0,0 +1,134 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A table from the UTF-8 bytes of words to their lower-case Strings, so
+ * that a word seen many times in a byte stream is only decoded once.
+ * Mutable, and not safe for use by more than one thread.
+ */
+class ByteVocabulary {
+    
+    private static final int INITIAL_CAPACITY = 1 << 12;
+    
+    // Open-addressed table of entry indices + 1 (0 = empty slot)
+    private int[] slots = new int[INITIAL_CAPACITY];
+    // Per entry: hash, offset and length of its bytes in pool, and word
+    private int[] hashes = new int[INITIAL_CAPACITY / 2];
+    private int[] offsets = new int[INITIAL_CAPACITY / 2];
+    private int[] lengths = new int[INITIAL_CAPACITY / 2];
+    private String[] words = new String[INITIAL_CAPACITY / 2];
+    private byte[] pool = new byte[INITIAL_CAPACITY * 8];
+    private int poolSize = 0;
+    private int size = 0;
+    
+    // One shared instance per distinct lower-case word, since differently
+    // cased spellings of a word are different byte sequences
+    private final Map<String, String> lowerCase = new HashMap<>();
+    
+    // Abstraction function:
+    //   AF(r) = the map { pool[offsets[i]..offsets[i]+lengths[i]) :
+    //                     words[i] for all 0 <= i < r.size }
+    // Representation invariant:
+    //   size < slots.length / 2, slots.length a power of two
+    //   every entry index 0 <= i < size is in exactly one slot
+    //   words[i] is the lower-case decoding of entry i's bytes, and is
+    //   the instance stored in lowerCase for that word
+    // Safety from rep exposure:
+    //   arrays are never returned; Strings are immutable
+    
+    /**
+     * Get the lower-case word spelled by a run of bytes, decoding it only
+     * if these bytes have not been seen before.
+     * 
+     * @param bytes buffer holding the word; its position and limit are
+     *        ignored and left unchanged
+     * @param offset index in bytes of the first byte of the word
+     * @param length number of bytes in the word, > 0
+     * @return the word decoded as UTF-8 and lower-cased, the same instance
+     *         every time the same lower-case word is returned
+     */
+    String lookup(ByteBuffer bytes, int offset, int length) {
+    	int hash = 1;
+    	for (int i = 0; i < length; i++)
+    		hash = 31 * hash + bytes.get(offset + i);
+    	int mask = slots.length - 1;
+    	for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+    		int entry = slots[slot] - 1;
+    		if (entry < 0) {
+    			entry = insert(bytes, offset, length, hash);
+    			slots[slot] = entry + 1;
+    			if (size * 2 >= slots.length)
+    				rehash();
+    			return words[entry];
+    		}
+    		if (hashes[entry] == hash && matches(entry, bytes, offset, length))
+    			return words[entry];
+    	}
+    }
+    
+    /**
+     * @return the number of distinct byte sequences seen
+     */
+    int size() {
+    	return size;
+    }
+    
+    private static int mix(int hash) {
+    	return hash ^ (hash >>> 16);
+    }
+    
+    private boolean matches(int entry, ByteBuffer bytes, int offset, int length) {
+    	if (lengths[entry] != length)
+    		return false;
+    	int start = offsets[entry];
+    	for (int i = 0; i < length; i++)
+    		if (pool[start + i] != bytes.get(offset + i))
+    			return false;
+    	return true;
+    }
+    
+    private int insert(ByteBuffer bytes, int offset, int length, int hash) {
+    	if (size == words.length) {
+    		int capacity = words.length * 2;
+    		hashes = Arrays.copyOf(hashes, capacity);
+    		offsets = Arrays.copyOf(offsets, capacity);
+    		lengths = Arrays.copyOf(lengths, capacity);
+    		words = Arrays.copyOf(words, capacity);
+    	}
+    	if (poolSize + length > pool.length)
+    		pool = Arrays.copyOf(pool, Math.max(pool.length * 2, poolSize + length));
+    	for (int i = 0; i < length; i++)
+    		pool[poolSize + i] = bytes.get(offset + i);
+    	
+    	String word = new String(pool, poolSize, length, StandardCharsets.UTF_8)
+    			.toLowerCase();
+    	String existing = lowerCase.putIfAbsent(word, word);
+    	
+    	hashes[size] = hash;
+    	offsets[size] = poolSize;
+    	lengths[size] = length;
+    	words[size] = existing == null ? word : existing;
+    	poolSize += length;
+    	return size++;
+    }
+    
+    private void rehash() {
+    	slots = new int[slots.length * 2];
+    	int mask = slots.length - 1;
+    	for (int entry = 0; entry < size; entry++) {
+    		int slot = mix(hashes[entry]) & mask;
+    		while (slots[slot] != 0)
+    			slot = (slot + 1) & mask;
+    		slots[slot] = entry + 1;
+    	}
+    }
+    
+}
@@ -0,0 +1,83 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+/**
+ * An immutable snapshot of the counters of a GraphPoet's bridge word cache.
+ */
+public class CacheStats {
+    
+    private final int capacity;
+    private final int size;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    
+    // Abstraction function:
+    //   AF(r) = the state of a cache holding r.size of at most r.capacity
+    //           entries, which has answered r.hits lookups, failed r.misses
+    //           lookups and evicted r.evictions entries
+    // Representation invariant:
+    //   0 <= size <= capacity, hits, misses, evictions >= 0
+    // Safety from rep exposure:
+    //   all fields are private, final and primitive
+    
+    CacheStats(int capacity, int size, long hits, long misses, long evictions) {
+    	this.capacity = capacity;
+    	this.size = size;
+    	this.hits = hits;
+    	this.misses = misses;
+    	this.evictions = evictions;
+    }
+    
+    /**
+     * @return the maximum number of word pairs the cache can hold
+     */
+    public int capacity() {
+    	return capacity;
+    }
+    
+    /**
+     * @return the number of word pairs held in the cache
+     */
+    public int size() {
+    	return size;
+    }
+    
+    /**
+     * @return the number of lookups answered from the cache
+     */
+    public long hits() {
+    	return hits;
+    }
+    
+    /**
+     * @return the number of lookups that had to search the affinity graph
+     */
+    public long misses() {
+    	return misses;
+    }
+    
+    /**
+     * @return the number of word pairs dropped to make room for others
+     */
+    public long evictions() {
+    	return evictions;
+    }
+    
+    /**
+     * @return the fraction of lookups answered from the cache, or 0 if
+     *         there have been no lookups
+     */
+    public double hitRate() {
+    	long lookups = hits + misses;
+    	return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+    
+    @Override public String toString() {
+    	return String.format("size=%d/%d hits=%d misses=%d evictions=%d",
+    			size, capacity, hits, misses, evictions);
+    }
+    
+}
@@ -3,15 +3,40 @@
  */
 package poet;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
 
+import graph.ConcreteEdgesGraph;
+import graph.FrozenGraph;
 import graph.Graph;
+import graph.GraphFormat;
+import graph.Graphs;
+import graph.RandomWalk;
+import graph.ViewMode;
 
 /**
  * A graph-based poetry generator.
@@ -57,7 +82,43 @@ import graph.Graph;
  */
 public class GraphPoet {
     
-    private final Graph<String> graph = Graph.empty();
+    // Affinity graph, and the ranked edges used to search it for bridges
+    private volatile BridgeFinder finder;
+    
+    /**
+     * Number of word pairs whose bridge words are cached by default.
+     */
+    public static final int DEFAULT_BRIDGE_CACHE_SIZE = 1 << 16;
+    
+    /**
+     * Number of search states a multi-hop bridge search expands by default
+     * for each word pair.
+     */
+    public static final int DEFAULT_PATH_SEARCH_BUDGET = 4096;
+    
+    // Number of inputs in each task of poems(Collection, Executor)
+    private static final int POEM_BATCH_SIZE = 64;
+    
+    // Best bridge for recently looked up (w1, w2) pairs, filled lazily
+    // on first use; Optional.empty() records that there is no bridge
+    private final BridgeCache bridges;
+    
+    // Most edges on the path bridging two input words, and the most search
+    // states expanded to find it when maxHops > 2
+    private final int maxHops;
+    private final int pathSearchBudget;
+    
+    // How graphs are built for append()
+    private final Charset charset;
+    private final ViewMode viewMode;
+    private final boolean frozen;
+    private final Object appendLock = new Object();
+    
+    // Random walk over walkGraph, compiled by the first generate() after
+    // the graph changes; both guarded by walkLock
+    private RandomWalk<String> walk = null;
+    private Graph<String> walkGraph = null;
+    private final Object walkLock = new Object();
     
     // Abstraction function:
     //   AF(r) = a graph, g, such that
@@ -65,8 +126,25 @@ public class GraphPoet {
     //       g.edges() = r.word_affinities
     // Representation invariant:
     //   word data is immutable once assigned
+    //   for every (p, b) cached in bridges for a finder f, b is the result
+    //   of findBridge(f, p.first, p.second)
     // Safety from rep exposure:
-    //   private graph object never returned in a function 
+    //   private graph object never returned in a function; topBridges()
+    //   returns a new unmodifiable list
+    //   views returned by the graph are only read, and never held across
+    //   a mutation
+    // Thread safety argument:
+    //   a graph is never mutated once a finder for it is assigned to the
+    //   volatile finder field, and is usually an immutable FrozenGraph;
+    //   BridgeFinder is thread-safe; append() builds a new graph and
+    //   replaces finder while holding appendLock, so appends are serialized
+    //   and readers see either the old or the new graph whole
+    //   walk and walkGraph are guarded by walkLock, and RandomWalk is
+    //   immutable
+    //   bridges is thread-safe, and only returns bridges found with the
+    //   finder a lookup passes; append() moves bridges to the new finder
+    //   before replacing finder, so a poem only uses bridges found in the
+    //   graph of the finder it read
     
     /**
      * Create a new poet with the graph from corpus (as described above).
@@ -75,44 +153,142 @@ public class GraphPoet {
      * @throws IOException if the corpus file cannot be found or read
      */
     public GraphPoet(File corpus) throws IOException {
-    	String contents = getContents(corpus);
-    	generateGraph(Arrays.asList(contents.toLowerCase().split("\\s+")));
-    	
+    	this(corpus, DEFAULT_BRIDGE_CACHE_SIZE);
     }
     
     /**
-     * Read the contents of a given text file into a string.
-     * @param f The file to open and read.
-     * @return The string contents of the file.
+     * Create a new poet with the graph from corpus (as described above),
+     * caching the bridge words of at most bridgeCacheSize word pairs.
+     * 
+     * @param corpus text file from which to derive the poet's affinity graph
+     * @param bridgeCacheSize maximum number of word pairs whose bridge
+     *        words are remembered between lookups, or 0 to disable caching
+     * @throws IOException if the corpus file cannot be found or read
+     * @throws IllegalArgumentException if bridgeCacheSize < 0
      */
-    private String getContents(File f) throws IOException {
-    	BufferedReader reader = new BufferedReader(new FileReader(f));
-    	StringBuilder sb = new StringBuilder();
-    	String line;
-    	while ((line = reader.readLine()) != null)
-    		sb.append(line + " ");
-    	reader.close();
-    	return sb.toString();
+    public GraphPoet(File corpus, int bridgeCacheSize) throws IOException {
+    	this(builder().bridgeCacheSize(bridgeCacheSize).build(corpus));
+    }
+    
+    private GraphPoet(GraphPoet that) {
+    	this.finder = that.finder;
+    	this.bridges = that.bridges;
+    	this.maxHops = that.maxHops;
+    	this.pathSearchBudget = that.pathSearchBudget;
+    	this.charset = that.charset;
+    	this.viewMode = that.viewMode;
+    	this.frozen = that.frozen;
     }
     
     /**
-     * Generate the word affinity graph for the supplied list of words and
-     * assign it to the internal member graph.
-     * @param wordList a list of lower-case words (including punctuation)
-     * 			from which to form the graph
+     * Create a poet from a finished affinity graph, which is frozen into an
+     * immutable snapshot unless the builder says otherwise.
      */
-    private void generateGraph(List<String> wordList) {
-    	for (int i=0; i<wordList.size()-1; i++) {
-    		String thisWord = wordList.get(i);
-    		String nextWord = wordList.get(i+1);
-    		if (!thisWord.equals(nextWord)) {
-    			graph.add(thisWord);
-    			graph.add(nextWord);
-    			graph.set(thisWord, nextWord);
+    private GraphPoet(Builder builder, Graph<String> graph) {
+    	this.maxHops = builder.maxHops;
+    	this.pathSearchBudget = builder.pathSearchBudget;
+    	this.charset = builder.charset;
+    	this.viewMode = builder.viewMode;
+    	this.frozen = builder.frozen;
+    	this.finder = new BridgeFinder(frozen ? FrozenGraph.of(graph) : graph);
+    	this.bridges = new BridgeCache(builder.bridgeCacheSize, finder);
+    }
+    
+    /**
+     * Start configuring a new poet. The builder reads the corpus as a stream
+     * of words, so memory use grows with the vocabulary and number of
+     * distinct adjacencies in the corpus rather than with its length.
+     * 
+     * @return a builder with the default configuration
+     */
+    public static Builder builder() {
+    	return new Builder();
+    }
+    
+    /**
+     * Add every adjacent pair of words in a stream of corpus text to an
+     * affinity graph, reading one word at a time.
+     * @param corpus text from which to derive the affinity graph; not closed
+     * @param graph mutable affinity graph to add to
+     * @throws IOException if corpus cannot be read
+     */
+    private static void ingest(Reader corpus, Graph<String> graph) throws IOException {
+    	WordReader words = new WordReader(corpus);
+    	// One instance of each distinct word, shared by every edge of the
+    	// graph that refers to the word
+    	Map<String, String> canonical = new HashMap<>();
+    	String previous = null;
+    	String word;
+    	while ((word = words.next()) != null) {
+    		word = WordScanner.toLowerCase(word);
+    		String existing = canonical.putIfAbsent(word, word);
+    		if (existing != null)
+    			word = existing;
+    		if (previous != null)
+    			addAdjacency(graph, previous, word);
+    		previous = word;
+    	}
+    }
+    
+    /**
+     * Add every adjacent pair of words in a corpus file to an affinity
+     * graph, scanning the file through memory-mapped buffers.
+     * @param corpus UTF-8 or ASCII text file from which to derive the
+     *        affinity graph
+     * @param graph mutable affinity graph to add to
+     * @throws IOException if corpus cannot be opened or mapped
+     */
+    private static void ingestMapped(Path corpus, Graph<String> graph)
+    		throws IOException {
+    	try (FileChannel channel = FileChannel.open(corpus, StandardOpenOption.READ)) {
+    		MappedWordReader words = new MappedWordReader(channel);
+    		String previous = null;
+    		String word;
+    		while ((word = words.next()) != null) {
+    			if (previous != null)
+    				addAdjacency(graph, previous, word);
+    			previous = word;
     		}
     	}
     }
     
+    /**
+     * Add every adjacent pair of words in a corpus file to an affinity
+     * graph, counting the pairs in chunks of the file in parallel.
+     * @param corpus UTF-8 or ASCII text file from which to derive the
+     *        affinity graph
+     * @param graph mutable affinity graph to add to
+     * @param pool pool on which to count chunks of the file
+     * @param chunkSize number of bytes of the file in each chunk
+     * @throws IOException if corpus cannot be opened or mapped
+     */
+    private static void ingestParallel(Path corpus, Graph<String> graph,
+    		ForkJoinPool pool, long chunkSize) throws IOException {
+    	Map<String, Map<String, Integer>> counts;
+    	try (FileChannel channel = FileChannel.open(corpus, StandardOpenOption.READ)) {
+    		counts = new AdjacencyCounter(channel, chunkSize).count(pool);
+    	}
+    	counts.forEach((w1, targets) -> targets.forEach((w2, n) -> {
+    		graph.add(w1);
+    		graph.add(w2);
+    		graph.set(w1, w2, n);
+    	}));
+    }
+    
+    /**
+     * Record in an affinity graph that word w1 was followed by word w2.
+     * @param graph mutable affinity graph to add to
+     * @param w1 a lower-case word
+     * @param w2 the lower-case word following w1 in the corpus
+     */
+    private static void addAdjacency(Graph<String> graph, String w1, String w2) {
+    	if (!w1.equals(w2)) {
+    		graph.add(w1);
+    		graph.add(w2);
+    		graph.set(w1, w2);
+    	}
+    }
+    
     /**
      * Generate a poem.
      * 
@@ -120,24 +296,311 @@ public class GraphPoet {
      * @return poem (as described above)
      */
     public String poem(String input) {
-        List<String> words = Arrays.asList(input.split("\\s+"));
-        List<String> poem = new ArrayList<>(words);
+        return poem(input, new WordScanner());
+    }
+    
+    /**
+     * Generate a poem, scanning the input with a reusable scanner.
+     * @param input string from which to create the poem
+     * @param words scanner to reset to input
+     * @return poem (as described above)
+     */
+    private String poem(String input, WordScanner words) {
+        BridgeFinder finder = this.finder;
+        Vocabulary vocabulary = finder.vocabulary();
+        words.reset(input);
         
-        // TODO choose weightiest path if there's more than 1
-        for (int i=poem.size()-2; i>=0; i--) {
-        	String bridge = findBridge(poem.get(i), poem.get(i+1));
-        	if (bridge != null)
-        		poem.add(i+1, bridge);
+        // One forward pass, appending the bridge from the previous word and
+        // then each word, copied straight from input; the buffer starts
+        // with room for a bridge per word. A word that is not in the
+        // vocabulary has no edges, so there are no bridges to or from it
+        StringBuilder sb = new StringBuilder(2 * input.length() + 16);
+        String previous = null;
+        while (words.next()) {
+        	String word = vocabulary.get(input, words.start(), words.end());
+        	if (sb.length() > 0) {
+        		sb.append(' ');
+        		String bridge = previous == null || word == null ? null
+        				: lookupBridge(finder, previous, word);
+        		if (bridge != null)
+        			sb.append(bridge).append(' ');
+        	}
+        	sb.append(input, words.start(), words.end());
+        	previous = word;
         }
-        StringBuilder sb = new StringBuilder();
-        for (String w: poem) 
-        	sb.append(w + " ");
-        return sb.toString().trim();
+        return sb.toString();
+    }
+    
+    /**
+     * Generate a poem from a stream of input, writing it as the input is
+     * read. Only the current input word and the one before it are held in
+     * memory, so inputs of any length can be piped through the poet, and
+     * each word is written, after the bridge to it, as soon as it has been
+     * read.
+     * 
+     * @param input text from which to create the poem; read to the end
+     *        but not closed
+     * @param output destination of the poem (as described above), which is
+     *        the same as poem() returns for the whole input; not flushed
+     *        or closed
+     * @throws IOException if input cannot be read or output written
+     */
+    public void poem(Reader input, Appendable output) throws IOException {
+    	BridgeFinder finder = this.finder;
+    	Vocabulary vocabulary = finder.vocabulary();
+    	WordReader words = new WordReader(input);
+    	
+    	boolean first = true;
+    	String previous = null;
+    	String word;
+    	while ((word = words.next()) != null) {
+    		String known = vocabulary.get(word);
+    		if (!first) {
+    			output.append(' ');
+    			String bridge = previous == null || known == null ? null
+    					: lookupBridge(finder, previous, known);
+    			if (bridge != null)
+    				output.append(bridge).append(' ');
+    		}
+    		output.append(word);
+    		previous = known;
+    		first = false;
+    	}
+    }
+    
+    /**
+     * Find the best words to bridge two words, for offering alternatives
+     * to the bridge word chosen by poem().
+     * 
+     * @param w1 the first word, in any case
+     * @param w2 the second word, in any case
+     * @param k maximum number of bridge words to return
+     * @return the lower-case words X such that w1 > X > w2 are edges of
+     *         the affinity graph (ignoring case), at most k of them, in
+     *         decreasing order of the total weight of both edges, and
+     *         words of equal total weight in String order; the first word,
+     *         if any, is the one poem() inserts between w1 and w2
+     * @throws IllegalArgumentException if k < 1
+     */
+    public List<String> topBridges(String w1, String w2, int k) {
+    	if (k < 1)
+    		throw new IllegalArgumentException("Requires k >= 1");
+    	return finder.top(WordScanner.toLowerCase(w1), WordScanner.toLowerCase(w2), k);
+    }
+    
+    /**
+     * Generate free text by a weighted random walk over the affinity graph:
+     * the text starts at a random word of the corpus, and each next word is
+     * chosen from the words that followed the previous word in the corpus,
+     * with probability proportional to how often it followed it. After a
+     * word that nothing followed, the text continues at a random word.
+     * 
+     * @param length number of words to generate
+     * @param seed seed of the walk; the same seed gives the same text for
+     *        the same corpus
+     * @return length lower-case words separated by single spaces, or the
+     *         empty string if the corpus is empty
+     * @throws IllegalArgumentException if length < 0
+     */
+    public String generate(int length, long seed) {
+    	if (length < 0)
+    		throw new IllegalArgumentException("Requires length >= 0");
+    	RandomWalk<String> walk = randomWalk();
+    	SplittableRandom random = new SplittableRandom(seed);
+    	StringBuilder sb = new StringBuilder(8 * length);
+    	if (length > 0 && !walk.isEmpty())
+    		walk.walk(walk.randomVertex(random), length, random,
+    				(word) -> sb.append(word).append(' '));
+    	return sb.toString().trim();
+    }
+    
+    /**
+     * @return the random walk over the current affinity graph, compiling
+     *         it if the graph has changed since the last call
+     */
+    private RandomWalk<String> randomWalk() {
+    	synchronized (walkLock) {
+    		Graph<String> graph = finder.graph();
+    		if (walkGraph != graph) {
+    			walk = RandomWalk.of(graph);
+    			walkGraph = graph;
+    		}
+    		return walk;
+    	}
+    }
+    
+    /**
+     * Generate a poem for each of many inputs, in parallel. The inputs are
+     * split into batches of contiguous inputs, and each batch is written
+     * by one task on the executor; all tasks share this poet's graph and
+     * bridge word cache.
+     * 
+     * @param inputs strings from which to create poems; must not contain null
+     * @param executor executor on which to write the poems, for example a
+     *        ForkJoinPool or a fixed thread pool with one thread per core
+     * @return the poem (as described above) for each input, in the
+     *         iteration order of inputs
+     */
+    public List<String> poems(Collection<String> inputs, Executor executor) {
+    	String[] in = inputs.toArray(new String[0]);
+    	String[] out = new String[in.length];
+    	List<CompletableFuture<Void>> batches = new ArrayList<>();
+    	for (int from = 0; from < in.length; from += POEM_BATCH_SIZE) {
+    		int start = from;
+    		int end = Math.min(in.length, from + POEM_BATCH_SIZE);
+    		batches.add(CompletableFuture.runAsync(() -> {
+    			WordScanner words = new WordScanner();
+    			for (int i = start; i < end; i++)
+    				out[i] = poem(in[i], words);
+    		}, executor));
+    	}
+    	CompletableFuture.allOf(batches.toArray(new CompletableFuture<?>[0])).join();
+    	return Arrays.asList(out);
+    }
+    
+    /**
+     * Generate a poem for each of a stream of inputs. Poems are written
+     * lazily as the returned stream is consumed; if inputs is parallel,
+     * they are written in parallel in the fork-join pool of the terminal
+     * operation, sharing this poet's graph and bridge word cache.
+     * 
+     * @param inputs strings from which to create poems; must not contain null
+     * @return a stream of the poem (as described above) for each input, in
+     *         the encounter order of inputs
+     */
+    public Stream<String> poems(Stream<String> inputs) {
+    	return inputs.map(this::poem);
+    }
+    
+    /**
+     * Get the size and hit, miss and eviction counts of this poet's bridge
+     * word cache, for tuning its size.
+     * 
+     * @return a snapshot of the bridge word cache counters
+     */
+    public CacheStats bridgeCacheStats() {
+    	return bridges.stats();
+    }
+    
+    /**
+     * Save this poet's affinity graph in binary form, so that a later poet
+     * can be loaded from it with Builder.load() without re-reading the
+     * corpus.
+     * 
+     * @param file file to write, replacing any existing file
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path file) throws IOException {
+    	GraphFormat.save(finder.graph(), file);
+    }
+    
+    /**
+     * Add more corpus text to this poet's affinity graph, adding the
+     * weights of its adjacent word pairs to those already in the graph.
+     * The text is read as a separate document: its first word does not
+     * follow the last word of the corpus so far.
+     * 
+     * <p>Poems written while the text is appended use the graph from
+     * before or after the append, never a mixture: each poem only uses
+     * cached bridge words found in the graph it started with. With maxHops
+     * 2, cached bridge words are only discarded for word pairs whose bridge
+     * may have changed; with more hops, all of them are discarded.
+     * 
+     * @param corpus text from which to derive more of the affinity graph;
+     *        not closed
+     * @throws IOException if corpus cannot be read; the graph is unchanged
+     */
+    public void append(Reader corpus) throws IOException {
+    	Graph<String> delta = new ConcreteEdgesGraph<>(ViewMode.VIEW);
+    	ingest(corpus, delta);
+    	merge(delta);
+    }
+    
+    /**
+     * Add more corpus text to this poet's affinity graph, as for
+     * append(Reader).
+     * 
+     * @param corpus text file in the charset this poet was built with
+     * @throws IOException if the corpus file cannot be found or read; the
+     *         graph is unchanged
+     */
+    public void append(File corpus) throws IOException {
+    	try (InputStream in = new FileInputStream(corpus)) {
+    		append(new InputStreamReader(in, charset));
+    	}
+    }
+    
+    /**
+     * Replace the graph with the sum of the graph and delta, then discard
+     * the cached bridges that delta may have changed. With maxHops 2, the
+     * bridge between a and b depends only on the edges out of a and the
+     * edges into b, so a new or heavier edge (s, t) can only change the
+     * pairs (s, *) and (*, t). A longer path also depends on its interior
+     * edges, and on the total weight out of every vertex along it, so then
+     * the whole cache is discarded.
+     * @param delta affinity graph of the appended text
+     */
+    private void merge(Graph<String> delta) {
+    	Set<String> sources = new HashSet<>();
+    	Set<String> targets = new HashSet<>();
+    	for (String s: delta.vertices())
+    		for (String t: delta.targets(s).keySet()) {
+    			sources.add(s);
+    			targets.add(t);
+    		}
+    	if (sources.isEmpty())
+    		return;
+    	
+    	synchronized (appendLock) {
+    		Graph<String> graph = finder.graph();
+    		Graph<String> merged;
+    		if (graph instanceof FrozenGraph) {
+    			merged = ((FrozenGraph<String>) graph).plus(delta);
+    		} else {
+    			merged = new ConcreteEdgesGraph<>(viewMode);
+    			for (Graph<String> g: Arrays.asList(graph, delta))
+    				for (String s: g.vertices()) {
+    					merged.add(s);
+    					for (Map.Entry<String, Integer> e: g.targets(s).entrySet()) {
+    						int previous = merged.set(s, e.getKey(), e.getValue());
+    						if (previous > 0)
+    							merged.set(s, e.getKey(), previous + e.getValue());
+    					}
+    				}
+    		}
+    		BridgeFinder next = new BridgeFinder(frozen ? FrozenGraph.of(merged) : merged);
+    		if (maxHops == 2)
+    			bridges.invalidate(sources, targets, next);
+    		else
+    			bridges.invalidateAll(next);
+    		finder = next;
+    	}
+    }
+    
+    /**
+     * Find the bridge word to insert between two input words, using the
+     * cached result for the pair if there is one.
+     * @param finder snapshot of the affinity graph to search; only cached
+     *        results found with finder are used
+     * @param a The first input word, as returned by finder's vocabulary
+     * @param b The second input word, as returned by finder's vocabulary
+     * @return the bridge words as described by findBridge, or null if
+     *         there are none
+     */
+    private String lookupBridge(BridgeFinder finder, String a, String b) {
+    	WordPair key = new WordPair(a, b);
+    	Optional<String> bridge = bridges.get(key, finder);
+    	if (bridge == null) {
+    		bridge = Optional.ofNullable(findBridge(finder, key.first, key.second));
+    		bridges.put(key, bridge, finder);
+    	}
+    	return bridge.orElse(null);
     }
     
     /**
      * Search the graph for a bridge word to insert between words
      * a and b.
+     * @param finder the affinity graph to search
      * @param a The source word
      * @param b The word that will go 
      * @return a bridge word X such that the edges a > X > b exist,
@@ -146,35 +609,245 @@ public class GraphPoet {
      *         will be the one with the highest total edge weight from
      *         a and to b. In other words, a 1> X 2> b would win over
      *         a 1> Y 1> b (since 1 + 2 is greater than 1 + 1).  
-     *          
+     *         Of candidates with equal total weight, the one returned is
+     *         the first in String order.
+     *         If maxHops > 2, instead the words X1 ... Xn, joined by single
+     *         spaces, of the most likely path a > X1 > ... > Xn > b of
+     *         2 to maxHops edges found by Graphs.likeliestPath().
      */
-    private String findBridge(String a, String b) {
-    	if (!graph.vertices().containsAll(Arrays.asList(a, b)))
+    private String findBridge(BridgeFinder finder, String a, String b) {
+    	if (maxHops == 2)
+    		return finder.best(a, b);
+    	List<String> path = Graphs.likeliestPath(finder.graph(), a, b,
+    			2, maxHops, pathSearchBudget);
+    	if (path.isEmpty())
     		return null;
-    	
-    	String result = null;
-    	int resultWeight = 0;
-    	
-    	for (String bridge: graph.targets(a).keySet()) {
-    		
-    		for (String target: graph.targets(bridge).keySet()) {
-    			
-    			if (target.equals(b)) {
-    				int totalWeight = graph.targets(a).get(bridge)
-    						+ graph.targets(bridge).get(target);
-    				
-    				if (result == null || totalWeight > resultWeight) {
-    					result = bridge; 
-    					resultWeight = totalWeight;
-    				}
-    			}
-    		}
-    	}
-    	return result;
+    	return String.join(" ", path.subList(1, path.size() - 1));
     }
     
     @Override public String toString() {
-    	return "GraphPoet@{" + graph + "}";
+    	return "GraphPoet@{" + finder.graph() + "}";
+    }
+    
+    /**
+     * Configures and creates GraphPoets. Each build method reads a corpus
+     * incrementally and creates a poet with the graph from that corpus (as
+     * described for {@link GraphPoet}).
+     * Mutable; a builder may be reused to create any number of poets.
+     */
+    public static class Builder {
+        
+    	private int bridgeCacheSize = DEFAULT_BRIDGE_CACHE_SIZE;
+    	private ViewMode viewMode = ViewMode.VIEW;
+    	private Charset charset = Charset.defaultCharset();
+    	private boolean memoryMapped = false;
+    	private ForkJoinPool pool = null;
+    	private long chunkSize = AdjacencyCounter.DEFAULT_CHUNK_SIZE;
+    	private boolean frozen = true;
+    	private int maxHops = 2;
+    	private int pathSearchBudget = DEFAULT_PATH_SEARCH_BUDGET;
+    	
+    	private Builder() {
+    	}
+    	
+    	/**
+    	 * @param size maximum number of word pairs whose bridge words are
+    	 *        remembered between lookups, or 0 to disable caching
+    	 * @return this builder
+    	 * @throws IllegalArgumentException if size < 0
+    	 */
+    	public Builder bridgeCacheSize(int size) {
+    		if (size < 0)
+    			throw new IllegalArgumentException("Requires size >= 0");
+    		this.bridgeCacheSize = size;
+    		return this;
+    	}
+    	
+    	/**
+    	 * Choose how many words poem() may insert between two input words.
+    	 * With the default of 2 edges, poem() inserts the single bridge word
+    	 * described for {@link GraphPoet}. With more, it treats the graph as
+    	 * a Markov chain, in which each edge out of a word is followed with
+    	 * probability proportional to its weight, and inserts the words of
+    	 * the most likely path of 2 to maxHops edges between the two input
+    	 * words, if there is one. The search for each word pair expands at
+    	 * most pathSearchBudget states, so its cost is bounded.
+    	 * 
+    	 * @param maxHops most edges on the path between two input words,
+    	 *        maxHops >= 2
+    	 * @return this builder
+    	 * @throws IllegalArgumentException if maxHops < 2
+    	 */
+    	public Builder maxHops(int maxHops) {
+    		if (maxHops < 2)
+    			throw new IllegalArgumentException("Requires maxHops >= 2");
+    		this.maxHops = maxHops;
+    		return this;
+    	}
+    	
+    	/**
+    	 * @param budget most search states expanded to bridge each word pair
+    	 *        when maxHops > 2, budget >= 1; by default
+    	 *        DEFAULT_PATH_SEARCH_BUDGET
+    	 * @return this builder
+    	 * @throws IllegalArgumentException if budget < 1
+    	 */
+    	public Builder pathSearchBudget(int budget) {
+    		if (budget < 1)
+    			throw new IllegalArgumentException("Requires budget >= 1");
+    		this.pathSearchBudget = budget;
+    		return this;
+    	}
+    	
+    	/**
+    	 * @param charset character set used to decode corpus bytes, by
+    	 *        default the platform default
+    	 * @return this builder
+    	 */
+    	public Builder charset(Charset charset) {
+    		this.charset = charset;
+    		return this;
+    	}
+    	
+    	/**
+    	 * Choose whether corpus files are read by memory-mapping them and
+    	 * scanning their bytes directly, which is usually faster for large
+    	 * files on local disk. Only used by build(Path) and build(File), and
+    	 * only when this builder's charset is UTF-8 or US-ASCII; otherwise
+    	 * corpus files are read as a stream of characters.
+    	 * 
+    	 * @param memoryMapped true to memory-map corpus files; false by default
+    	 * @return this builder
+    	 */
+    	public Builder memoryMapped(boolean memoryMapped) {
+    		this.memoryMapped = memoryMapped;
+    		return this;
+    	}
+    	
+    	/**
+    	 * Choose whether corpus files are split into chunks which are read
+    	 * in parallel, merging the counts of their word pairs into the
+    	 * affinity graph; the graph is the same as when reading sequentially.
+    	 * Like memory mapping, only used by build(Path) and build(File) when
+    	 * this builder's charset is UTF-8 or US-ASCII.
+    	 * 
+    	 * @param pool pool on which to read chunks of corpus files, or null
+    	 *        (the default) to read them sequentially
+    	 * @return this builder
+    	 */
+    	public Builder parallel(ForkJoinPool pool) {
+    		this.pool = pool;
+    		return this;
+    	}
+    	
+    	/**
+    	 * @param chunkSize number of bytes of a corpus file read by each
+    	 *        parallel task, > 0; for testing
+    	 * @return this builder
+    	 */
+    	Builder chunkSize(long chunkSize) {
+    		if (chunkSize <= 0)
+    			throw new IllegalArgumentException("Requires chunkSize > 0");
+    		this.chunkSize = chunkSize;
+    		return this;
+    	}
+    	
+    	/**
+    	 * @param frozen whether a poet's affinity graph is compiled into a
+    	 *        FrozenGraph once it is built, which is the default; for
+    	 *        benchmarking
+    	 * @return this builder
+    	 */
+    	Builder frozen(boolean frozen) {
+    		this.frozen = frozen;
+    		return this;
+    	}
+    	
+    	/**
+    	 * @param viewMode view mode of the affinity graph while it is built,
+    	 *        and afterwards if it is not frozen; for benchmarking
+    	 * @return this builder
+    	 */
+    	Builder viewMode(ViewMode viewMode) {
+    		this.viewMode = viewMode;
+    		return this;
+    	}
+    	
+    	/**
+    	 * @param corpus text from which to derive the affinity graph; read
+    	 *        to the end but not closed
+    	 * @return a new poet
+    	 * @throws IOException if corpus cannot be read
+    	 */
+    	public GraphPoet build(Reader corpus) throws IOException {
+    		Graph<String> graph = newGraph();
+    		ingest(corpus, graph);
+    		return new GraphPoet(this, graph);
+    	}
+    	
+    	private Graph<String> newGraph() {
+    		return new ConcreteEdgesGraph<>(viewMode);
+    	}
+    	
+    	/**
+    	 * @param corpus bytes of the text from which to derive the affinity
+    	 *        graph, in this builder's charset; read to the end but not
+    	 *        closed
+    	 * @return a new poet
+    	 * @throws IOException if corpus cannot be read
+    	 */
+    	public GraphPoet build(InputStream corpus) throws IOException {
+    		return build(new InputStreamReader(corpus, charset));
+    	}
+    	
+    	/**
+    	 * @param corpus text file from which to derive the affinity graph,
+    	 *        in this builder's charset
+    	 * @return a new poet
+    	 * @throws IOException if the corpus file cannot be found or read
+    	 */
+    	public GraphPoet build(Path corpus) throws IOException {
+    		boolean byteScannable = charset.equals(StandardCharsets.UTF_8)
+    				|| charset.equals(StandardCharsets.US_ASCII);
+    		if (pool != null && byteScannable) {
+    			Graph<String> graph = newGraph();
+    			ingestParallel(corpus, graph, pool, chunkSize);
+    			return new GraphPoet(this, graph);
+    		}
+    		if (memoryMapped && byteScannable) {
+    			Graph<String> graph = newGraph();
+    			ingestMapped(corpus, graph);
+    			return new GraphPoet(this, graph);
+    		}
+    		try (InputStream in = Files.newInputStream(corpus)) {
+    			return build(in);
+    		}
+    	}
+    	
+    	/**
+    	 * @param corpus text file from which to derive the affinity graph,
+    	 *        in this builder's charset
+    	 * @return a new poet
+    	 * @throws IOException if the corpus file cannot be found or read
+    	 */
+    	public GraphPoet build(File corpus) throws IOException {
+    		return build(corpus.toPath());
+    	}
+    	
+    	/**
+    	 * Load a poet from an affinity graph saved by GraphPoet.save(). The
+    	 * graph file is memory-mapped, and this builder's corpus options
+    	 * are ignored.
+    	 * 
+    	 * @param graphFile file written by GraphPoet.save()
+    	 * @return a new poet
+    	 * @throws IOException if the graph file cannot be read, or is not a
+    	 *         valid graph file of a supported version
+    	 */
+    	public GraphPoet load(Path graphFile) throws IOException {
+    		return new GraphPoet(this, GraphFormat.load(graphFile));
+    	}
+    	
     }
     
 }
@@ -0,0 +1,156 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Reads lower-case words from a UTF-8 (or ASCII) file by scanning
+ * memory-mapped windows of the file for whitespace bytes, so that words
+ * are only copied and decoded when a ByteVocabulary sees them for the first
+ * time. Words and whitespace are defined as for WordReader; whitespace
+ * characters are all single bytes in UTF-8 and never occur inside the
+ * encoding of another character.
+ * 
+ * <p>A reader may be limited to the words that start within a range of
+ * bytes of the file, so that disjoint ranges of one file can be read
+ * independently and together yield every word exactly once.
+ * Mutable, and not safe for use by more than one thread.
+ */
+class MappedWordReader {
+    
+    /**
+     * Default number of bytes of the file mapped at a time.
+     */
+    static final int DEFAULT_WINDOW_SIZE = 1 << 26;
+    
+    private final FileChannel channel;
+    private final long size;
+    private final long end;
+    private final int windowSize;
+    private final ByteVocabulary vocabulary;
+    private long position;
+    private boolean started = false;
+    
+    private MappedByteBuffer window;
+    private long windowStart = 0;
+    private int windowLength = 0;
+    
+    // Holds a word that crosses from one window into the next
+    private byte[] scratch = new byte[256];
+    
+    // Abstraction function:
+    //   AF(r) = the words of the file in r.channel that start at or after
+    //           byte r.position and before byte r.end, lower-cased
+    // Representation invariant:
+    //   0 <= position <= size, end <= size
+    //   window maps bytes [windowStart, windowStart + windowLength)
+    // Safety from rep exposure:
+    //   buffers are never returned; words are immutable Strings
+    
+    /**
+     * Create a reader of the words of a whole file.
+     * @param channel readable channel of the file; not closed by this reader
+     * @throws IOException if the size of the file cannot be read
+     */
+    MappedWordReader(FileChannel channel) throws IOException {
+    	this(channel, 0, channel.size(), DEFAULT_WINDOW_SIZE, new ByteVocabulary());
+    }
+    
+    /**
+     * Create a reader of the words of a file that start at a byte offset in
+     * [start, end). A word that starts before start and continues past it is
+     * skipped; the last word may continue past end.
+     * 
+     * @param channel readable channel of the file; not closed by this reader
+     * @param start offset of the first byte of the range, >= 0
+     * @param end offset just past the last byte of the range, <= file size
+     * @param windowSize number of bytes to map at a time, > 0
+     * @param vocabulary table used to decode words
+     * @throws IOException if the size of the file cannot be read
+     */
+    MappedWordReader(FileChannel channel, long start, long end, int windowSize,
+    		ByteVocabulary vocabulary) throws IOException {
+    	this.channel = channel;
+    	this.size = channel.size();
+    	this.position = start;
+    	this.end = end;
+    	this.windowSize = windowSize;
+    	this.vocabulary = vocabulary;
+    }
+    
+    /**
+     * Read the next word.
+     * @return the next word, lower-cased, or null if there are no more
+     *         words starting in this reader's range
+     * @throws IOException if the file cannot be mapped
+     */
+    String next() throws IOException {
+    	if (!started) {
+    		started = true;
+    		// Skip the tail of a word owned by the previous range
+    		if (position > 0 && position < size && !isWhitespace(byteAt(position - 1)))
+    			while (position < size && !isWhitespace(byteAt(position)))
+    				position++;
+    	}
+    	while (position < end && isWhitespace(byteAt(position)))
+    		position++;
+    	if (position >= end)
+    		return null;
+    	
+    	long start = position;
+    	byteAt(start);
+    	int offset = (int) (start - windowStart);
+    	int i = offset;
+    	while (i < windowLength && !isWhitespace(window.get(i)))
+    		i++;
+    	if (i < windowLength || windowStart + windowLength == size) {
+    		// The whole word lies within this window
+    		position = windowStart + i;
+    		return vocabulary.lookup(window, offset, i - offset);
+    	}
+    	
+    	// The word runs past this window: collect it in scratch
+    	int length = 0;
+    	position = start;
+    	while (position < size) {
+    		byte b = byteAt(position);
+    		if (isWhitespace(b))
+    			break;
+    		if (length == scratch.length)
+    			scratch = Arrays.copyOf(scratch, length * 2);
+    		scratch[length++] = b;
+    		position++;
+    	}
+    	return vocabulary.lookup(ByteBuffer.wrap(scratch), 0, length);
+    }
+    
+    /**
+     * @param b a byte
+     * @return true iff b encodes a whitespace character that separates words
+     */
+    private static boolean isWhitespace(byte b) {
+    	return b == ' ' || b == '\n' || b == '\t' || b == '\r'
+    			|| b == '\f' || b == 0x0B;
+    }
+    
+    /**
+     * Get a byte of the file, mapping the window starting at it if it is
+     * not in the current window.
+     * @param offset offset of a byte in the file, 0 <= offset < size
+     */
+    private byte byteAt(long offset) throws IOException {
+    	if (window == null || offset < windowStart || offset >= windowStart + windowLength) {
+    		windowStart = offset;
+    		windowLength = (int) Math.min(windowSize, size - offset);
+    		window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowLength);
+    	}
+    	return window.get((int) (offset - windowStart));
+    }
+    
+}
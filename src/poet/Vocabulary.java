@@ -0,0 +1,159 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.util.Collection;
+
+/**
+ * A symbol table of the lower-case words of an affinity graph, mapping any
+ * spelling of a word to the one String instance that the graph uses for it.
+ * Words can be looked up by a range of characters in any case, so a word
+ * of the vocabulary is found without creating a String or a lower-case
+ * copy when its characters are ASCII; and since every lookup of a word
+ * returns the same instance, keys built from looked-up words compare equal
+ * by identity.
+ * Immutable.
+ */
+class Vocabulary {
+    
+    // Whether String.toLowerCase() maps A-Z to a-z in the default locale,
+    // which it does not in Turkish, for example
+    private static final boolean ASCII_LOWER_CASE =
+    		"ABCDEFGHIJKLMNOPQRSTUVWXYZ".toLowerCase().equals("abcdefghijklmnopqrstuvwxyz");
+    
+    // Open-addressed table of words, and their hash codes in the same slots
+    private final String[] words;
+    private final int[] hashes;
+    private final int size;
+    
+    // Abstraction function:
+    //   AF(r) = the set of the non-null words in r.words
+    // Representation invariant:
+    //   words.length is a power of two, greater than 2 * size
+    //   size words are non-null, lower case and distinct
+    //   hashes[i] == words[i].hashCode() for every non-null words[i]
+    //   every word is in the first empty-terminated run of slots starting
+    //   at mix(its hash)
+    // Safety from rep exposure:
+    //   arrays are never returned; Strings are immutable
+    // Thread safety argument:
+    //   immutable; all fields are final and the arrays are only read
+    //   after construction
+    
+    /**
+     * Create the vocabulary of a collection of words.
+     * @param vocabulary distinct words; the instances in this collection
+     *        are the ones returned by lookups, and words that are not in
+     *        lower case are left out, since no lookup could return them
+     */
+    Vocabulary(Collection<String> vocabulary) {
+    	int capacity = Integer.highestOneBit(Math.max(2, vocabulary.size()) * 2) * 2;
+    	this.words = new String[capacity];
+    	this.hashes = new int[capacity];
+    	int mask = capacity - 1;
+    	int count = 0;
+    	for (String word: vocabulary) {
+    		if (!word.equals(WordScanner.toLowerCase(word)))
+    			continue;
+    		count++;
+    		int hash = word.hashCode();
+    		int slot = mix(hash) & mask;
+    		while (words[slot] != null)
+    			slot = (slot + 1) & mask;
+    		words[slot] = word;
+    		hashes[slot] = hash;
+    	}
+    	this.size = count;
+    	assert checkRep();
+    }
+    
+    private boolean checkRep() {
+    	int count = 0;
+    	for (int i = 0; i < words.length; i++) {
+    		if (words[i] == null)
+    			continue;
+    		count++;
+    		if (hashes[i] != words[i].hashCode()
+    				|| !words[i].equals(WordScanner.toLowerCase(words[i]))
+    				|| get(words[i]) != words[i])
+    			return false;
+    	}
+    	return Integer.bitCount(words.length) == 1 && count == size
+    			&& words.length > 2 * size;
+    }
+    
+    private static int mix(int hash) {
+    	return hash ^ (hash >>> 16);
+    }
+    
+    /**
+     * @return the number of words in this vocabulary
+     */
+    int size() {
+    	return size;
+    }
+    
+    /**
+     * Look up a word in any case.
+     * @param word a word
+     * @return the instance of word in lower case in this vocabulary, or
+     *         null if it is not in this vocabulary
+     */
+    String get(String word) {
+    	return get(word, 0, word.length());
+    }
+    
+    /**
+     * Look up a word in any case, given as a range of characters.
+     * @param text characters holding the word
+     * @param start index in text of the first character of the word
+     * @param end index in text after the last character of the word
+     * @return the instance of text[start..end) in lower case in this
+     *         vocabulary, or null if it is not in this vocabulary
+     */
+    String get(CharSequence text, int start, int end) {
+    	// The hash is String.hashCode() of the word in lower case; lower-
+    	// casing non-ASCII characters can change the length of a word, so
+    	// those words are converted to Strings and looked up instead
+    	int hash = 0;
+    	for (int i = start; i < end; i++) {
+    		char c = text.charAt(i);
+    		if (c >= 0x80 || !ASCII_LOWER_CASE && c >= 'A' && c <= 'Z')
+    			return getString(text.subSequence(start, end).toString().toLowerCase());
+    		hash = 31 * hash + toLowerCase(c);
+    	}
+    	int mask = words.length - 1;
+    	for (int slot = mix(hash) & mask; words[slot] != null; slot = (slot + 1) & mask)
+    		if (hashes[slot] == hash && matches(words[slot], text, start, end))
+    			return words[slot];
+    	return null;
+    }
+    
+    private String getString(String lowerCase) {
+    	int hash = lowerCase.hashCode();
+    	int mask = words.length - 1;
+    	for (int slot = mix(hash) & mask; words[slot] != null; slot = (slot + 1) & mask)
+    		if (hashes[slot] == hash && words[slot].equals(lowerCase))
+    			return words[slot];
+    	return null;
+    }
+    
+    private static char toLowerCase(char c) {
+    	return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+    
+    private static boolean matches(String word, CharSequence text, int start, int end) {
+    	if (word.length() != end - start)
+    		return false;
+    	for (int i = start; i < end; i++)
+    		if (word.charAt(i - start) != toLowerCase(text.charAt(i)))
+    			return false;
+    	return true;
+    }
+    
+    @Override public String toString() {
+    	return "Vocabulary@{" + size + " words}";
+    }
+    
+}
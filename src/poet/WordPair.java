@@ -0,0 +1,48 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+/**
+ * Immutable ordered pair of words, used as a key for bridge lookups.
+ */
+class WordPair {
+    
+    final String first;
+    final String second;
+    private final int hash;
+    
+    // Abstraction function:
+    //   AF(r) = the pair (r.first, r.second)
+    // Representation invariant:
+    //   first, second non-null
+    //   hash == 31 * first.hashCode() + second.hashCode()
+    // Safety from rep exposure:
+    //   all fields are final and immutable
+    
+    WordPair(String first, String second) {
+    	this.first = first;
+    	this.second = second;
+    	this.hash = 31 * first.hashCode() + second.hashCode();
+    }
+    
+    @Override public boolean equals(Object that) {
+    	if (!(that instanceof WordPair))
+    		return false;
+    	WordPair other = (WordPair) that;
+    	// words from one Vocabulary are equal only if they are identical
+    	if (first == other.first && second == other.second)
+    		return true;
+    	return hash == other.hash
+    			&& first.equals(other.first) && second.equals(other.second);
+    }
+    
+    @Override public int hashCode() {
+    	return hash;
+    }
+    
+    @Override public String toString() {
+    	return "(" + first + ", " + second + ")";
+    }
+    
+}
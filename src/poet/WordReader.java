@@ -0,0 +1,93 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads words one at a time from a stream of characters, holding at most
+ * one buffer of characters and the current word in memory.
+ * Words are maximal non-empty runs of characters other than whitespace,
+ * where whitespace is as defined by WordScanner.isWhitespace().
+ * Mutable, and not safe for use by more than one thread.
+ */
+class WordReader implements Closeable {
+    
+    private static final int BUFFER_SIZE = 8192;
+    
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position = 0;
+    private int limit = 0;
+    private final StringBuilder word = new StringBuilder();
+    
+    // Abstraction function:
+    //   AF(r) = the words of r.buffer[r.position..r.limit) followed by
+    //           the words of the characters remaining in r.in
+    // Representation invariant:
+    //   0 <= position <= limit <= buffer.length
+    //   word is empty between calls to next()
+    // Safety from rep exposure:
+    //   buffer and word are never returned; next() returns new Strings
+    
+    /**
+     * Create a reader of the words in a stream of characters.
+     * @param in characters to read; closed when this reader is closed
+     */
+    WordReader(Reader in) {
+    	this.in = in;
+    }
+    
+    /**
+     * Read the next word.
+     * @return the next word, exactly as it appears in the stream, or null
+     *         if there are no more words
+     * @throws IOException if the underlying stream cannot be read
+     */
+    String next() throws IOException {
+    	assert word.length() == 0;
+    	while (fill()) {
+    		char c = buffer[position];
+    		if (!WordScanner.isWhitespace(c))
+    			break;
+    		position++;
+    	}
+    	if (position == limit)
+    		return null;
+    	while (fill()) {
+    		int start = position;
+    		while (position < limit && !WordScanner.isWhitespace(buffer[position]))
+    			position++;
+    		word.append(buffer, start, position - start);
+    		if (position < limit)
+    			break;
+    	}
+    	String result = word.toString();
+    	word.setLength(0);
+    	return result;
+    }
+    
+    /**
+     * Make sure the buffer holds at least one unread character, unless the
+     * stream is exhausted.
+     * @return true iff there is an unread character in the buffer
+     */
+    private boolean fill() throws IOException {
+    	while (position == limit) {
+    		int n = in.read(buffer, 0, buffer.length);
+    		if (n < 0)
+    			return false;
+    		position = 0;
+    		limit = n;
+    	}
+    	return true;
+    }
+    
+    @Override public void close() throws IOException {
+    	in.close();
+    }
+    
+}
@@ -0,0 +1,148 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+/**
+ * A cursor over the words of a string of characters in memory, scanning
+ * the characters directly instead of splitting the string with a regex.
+ * A word is reported as its start and end indices in the string, so the
+ * scanner allocates nothing for words that are only copied elsewhere, and
+ * one scanner can be reset to scan any number of strings.
+ * Words are maximal non-empty runs of characters other than whitespace,
+ * where whitespace is as defined by {@link #isWhitespace(char)}; this is
+ * the same tokenization as WordReader and MappedWordReader use for corpus
+ * text.
+ * Mutable, and not safe for use by more than one thread.
+ */
+class WordScanner {
+    
+    private CharSequence text = "";
+    private int start = 0;
+    private int end = 0;
+    
+    // Abstraction function:
+    //   AF(r) = a cursor on the word r.text[r.start..r.end), followed by
+    //           the words of r.text[r.end..]; before the first word, or
+    //           after the last, start == end
+    // Representation invariant:
+    //   0 <= start <= end <= text.length()
+    //   if start < end, text[start..end) is a word: it has no whitespace,
+    //   and is bounded by whitespace or the ends of text
+    // Safety from rep exposure:
+    //   text is only read; the caller must not change a mutable
+    //   CharSequence while scanning it
+    
+    /**
+     * Create a scanner with no text.
+     */
+    WordScanner() {
+    }
+    
+    /**
+     * Create a scanner positioned before the first word of text.
+     * @param text characters to scan
+     */
+    WordScanner(CharSequence text) {
+    	reset(text);
+    }
+    
+    /**
+     * @param c a character
+     * @return true iff c is a whitespace character that separates words:
+     *         space, tab, newline, vertical tab, form feed or carriage
+     *         return (the characters matched by the regex {@code \s})
+     */
+    static boolean isWhitespace(char c) {
+    	return c == ' ' || c == '\n' || c == '\t' || c == '\r'
+    			|| c == '\f' || c == '\u000B';
+    }
+    
+    /**
+     * Convert a word to lower case, like String.toLowerCase(), but without
+     * calling it for the common case of a word with only lower-case ASCII
+     * characters.
+     * @param word a word
+     * @return word in lower case; word itself if it is already lower case
+     *         ASCII
+     */
+    static String toLowerCase(String word) {
+    	for (int i = 0; i < word.length(); i++)
+    		if (!isLowerCaseAscii(word.charAt(i)))
+    			return word.toLowerCase();
+    	return word;
+    }
+    
+    private static boolean isLowerCaseAscii(char c) {
+    	return c < 0x80 && (c < 'A' || c > 'Z');
+    }
+    
+    private boolean checkRep() {
+    	if (start < 0 || start > end || end > text.length())
+    		return false;
+    	if (start < end && (start > 0 && !isWhitespace(text.charAt(start - 1))
+    			|| end < text.length() && !isWhitespace(text.charAt(end))))
+    		return false;
+    	return true;
+    }
+    
+    /**
+     * Position this scanner before the first word of new text.
+     * @param text characters to scan
+     */
+    void reset(CharSequence text) {
+    	this.text = text;
+    	this.start = 0;
+    	this.end = 0;
+    }
+    
+    /**
+     * Move to the next word.
+     * @return true if there is a next word, which becomes the current
+     *         word; false if there are no more words
+     */
+    boolean next() {
+    	int length = text.length();
+    	int i = end;
+    	while (i < length && isWhitespace(text.charAt(i)))
+    		i++;
+    	start = i;
+    	while (i < length && !isWhitespace(text.charAt(i)))
+    		i++;
+    	end = i;
+    	assert checkRep();
+    	return start < end;
+    }
+    
+    /**
+     * @return index in the text of the first character of the current word
+     */
+    int start() {
+    	return start;
+    }
+    
+    /**
+     * @return index in the text after the last character of the current word
+     */
+    int end() {
+    	return end;
+    }
+    
+    /**
+     * @return the current word, exactly as it appears in the text
+     */
+    String word() {
+    	return text.subSequence(start, end).toString();
+    }
+    
+    /**
+     * @return the current word in lower case, as by toLowerCase(word())
+     */
+    String lowerCaseWord() {
+    	for (int i = start; i < end; i++)
+    		if (!isLowerCaseAscii(text.charAt(i)))
+    			return word().toLowerCase();
+    	return word();
+    }
+    
+}
@@ -5,23 +5,36 @@ package graph;
 
 import static org.junit.Assert.*;
 
+import java.util.Map;
+
 import org.junit.Test;
 
 /**
  * Tests for ConcreteEdgesGraph.
  * 
- * This class runs the GraphInstanceTest tests against ConcreteEdgesGraph, as
+ * This class runs the ConcreteGraphTest tests against ConcreteEdgesGraph, as
  * well as tests for that particular implementation.
  * 
  * Tests against the Graph spec should be in GraphInstanceTest.
  */
-public class ConcreteEdgesGraphTest extends GraphInstanceTest {
+public class ConcreteEdgesGraphTest extends ConcreteGraphTest {
+    
+    /*
+     * Provide a ConcreteEdgesGraph for tests in ConcreteGraphTest.
+     */
+    @Override public Graph<String> emptyInstance(ViewMode viewMode,
+    		ValidationMode validation) {
+        return new ConcreteEdgesGraph<String>(viewMode, validation);
+    }
     
     /*
-     * Provide a ConcreteEdgesGraph for tests in GraphInstanceTest.
+     * Break the rep for tests in ConcreteGraphTest: add an edge to the
+     * forward index only.
      */
-    @Override public Graph<String> emptyInstance() {
-        return new ConcreteEdgesGraph<String>();
+    @Override public void corruptEdge(Graph<String> graph, String source,
+    		String target) throws ReflectiveOperationException {
+    	Map<String, Map<String, Integer>> outEdges = field(graph, "outEdges");
+    	outEdges.get(source).put(target, 5);
     }
     
     /*
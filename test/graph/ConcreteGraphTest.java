@@ -0,0 +1,270 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests shared by ConcreteEdgesGraph and ConcreteVerticesGraph, for the
+ * options their constructors take.
+ * 
+ * This class runs the GraphInstanceTest tests against graphs in
+ * ViewMode.COPY that check their whole rep, and tests the other view and
+ * validation modes against them.
+ * 
+ * Tests against the Graph spec should be in GraphInstanceTest.
+ */
+public abstract class ConcreteGraphTest extends GraphInstanceTest {
+    
+    /**
+     * Overridden by implementation-specific test classes.
+     * 
+     * @param viewMode how the graph's observers return results
+     * @param validation how much of its rep the graph checks
+     * @return a new empty graph of the particular implementation being tested
+     */
+    public abstract Graph<String> emptyInstance(ViewMode viewMode,
+    		ValidationMode validation);
+    
+    /**
+     * Overridden by implementation-specific test classes to break the rep
+     * invariant of a graph, by adding an edge to one end's side of the rep
+     * but not the other's.
+     * 
+     * @param graph a graph from emptyInstance()
+     * @param source a vertex of graph
+     * @param target a vertex of graph, with no edge from source
+     * @throws ReflectiveOperationException if the rep cannot be reached
+     */
+    public abstract void corruptEdge(Graph<String> graph, String source,
+    		String target) throws ReflectiveOperationException;
+    
+    /**
+     * @param viewMode how the graph's observers return results
+     * @return a new empty graph which checks its whole rep on every
+     *         operation
+     */
+    public Graph<String> emptyInstance(ViewMode viewMode) {
+        return emptyInstance(viewMode, ValidationMode.FULL);
+    }
+    
+    /*
+     * Provide a graph in ViewMode.COPY for tests in GraphInstanceTest.
+     */
+    @Override public Graph<String> emptyInstance() {
+        return emptyInstance(ViewMode.COPY);
+    }
+    
+    /**
+     * Read a private field of an object in the rep of a graph.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T field(Object object, String name) throws ReflectiveOperationException {
+    	Field field = object.getClass().getDeclaredField(name);
+    	field.setAccessible(true);
+    	return (T) field.get(object);
+    }
+    
+    /*
+     * Testing ViewMode.VIEW:
+     * - results equal those of ViewMode.COPY
+     * - results cannot be used to modify the graph
+     */
+    @Test
+    public void testViewModeMatchesCopyMode() {
+    	Graph<String> copy = emptyInstance(ViewMode.COPY);
+    	Graph<String> view = emptyInstance(ViewMode.VIEW);
+    	for (Graph<String> g: Arrays.asList(copy, view)) {
+    		g.add("D");
+    		g.set("A", "B", 1);
+    		g.set("A", "C", 2);
+    		g.set("C", "B", 3);
+    	}
+    	assertEquals(copy.vertices(), view.vertices());
+    	for (String v: copy.vertices()) {
+    		assertEquals(copy.targets(v), view.targets(v));
+    		assertEquals(copy.sources(v), view.sources(v));
+    	}
+    	assertEquals("expected B reachable from A by label",
+    			Integer.valueOf(1), view.targets("A").get("B"));
+    	assertEquals("expected empty map for unknown label",
+    			Collections.emptyMap(), view.targets("Z"));
+    }
+    
+    @Test(expected=UnsupportedOperationException.class)
+    public void testViewModeVerticesUnmodifiable() {
+    	Graph<String> g = emptyInstance(ViewMode.VIEW);
+    	g.add("A");
+    	g.vertices().remove("A");
+    }
+    
+    @Test(expected=UnsupportedOperationException.class)
+    public void testViewModeTargetsUnmodifiable() {
+    	Graph<String> g = emptyInstance(ViewMode.VIEW);
+    	g.set("A", "B", 1);
+    	Map<String, Integer> targets = g.targets("A");
+    	targets.put("C", 5);
+    }
+    
+    /*
+     * Testing Graphs.twoHop() on the graph's own edge maps:
+     * - results equal in ViewMode.COPY and ViewMode.VIEW
+     * - results are new maps, which do not change the graph
+     */
+    @Test
+    public void testTwoHopMatchesAcrossViewModes() {
+    	Graph<String> copy = emptyInstance(ViewMode.COPY);
+    	Graph<String> view = emptyInstance(ViewMode.VIEW);
+    	for (Graph<String> g: Arrays.asList(copy, view)) {
+    		g.set("A", "B", 1);
+    		g.set("A", "C", 2);
+    		g.set("B", "D", 3);
+    		g.set("C", "D", 4);
+    		g.set("A", "D", 5);
+    	}
+    	for (String a: copy.vertices())
+    		for (String b: copy.vertices())
+    			assertEquals(a + " to " + b, Graphs.twoHop(copy, a, b),
+    					Graphs.twoHop(view, a, b));
+    	
+    	Map<String, Integer> paths = Graphs.twoHop(view, "A", "D");
+    	assertEquals("expected paths through B and C", 2, paths.size());
+    	paths.put("D", 1);
+    	paths.remove("B");
+    	assertEquals("expected graph unchanged",
+    			Collections.singletonMap("A", 1), view.sources("B"));
+    	assertEquals("expected graph unchanged", 2, Graphs.twoHop(view, "A", "D").size());
+    	assertTrue("expected no paths to unknown vertex",
+    			Graphs.twoHop(view, "A", "Z").isEmpty());
+    }
+    
+    /*
+     * Testing ValidationMode:
+     * - every mode gives the same results for the same operations,
+     *   including removals of vertices with edges both ways
+     * - a broken rep is found by SAMPLED, INCREMENTAL and FULL, and not by
+     *   OFF; INCREMENTAL only finds it when the broken part is touched
+     * - the number of full checks: one per operation in FULL, none in OFF
+     *   and INCREMENTAL, one per size / SAMPLED_COST + 1 in SAMPLED
+     */
+    @Test
+    public void testValidationModesAgree() {
+    	List<Graph<String>> graphs = new ArrayList<>();
+    	for (ValidationMode mode: ValidationMode.values())
+    		graphs.add(emptyInstance(ViewMode.COPY, mode));
+    	Random random = new Random(25);
+    	for (int i = 0; i < 500; i++) {
+    		String source = "v" + random.nextInt(12);
+    		String target = "v" + random.nextInt(12);
+    		int op = random.nextInt(4);
+    		int weight = random.nextInt(3);
+    		if (op >= 2 && source.equals(target))
+    			continue;
+    		List<Object> results = new ArrayList<>();
+    		for (Graph<String> g: graphs) {
+    			if (op == 0)
+    				results.add(g.remove(source));
+    			else if (op == 1)
+    				results.add(g.add(source));
+    			else
+    				results.add(g.set(source, target, weight));
+    		}
+    		assertEquals("expected one result in every mode",
+    				1, new HashSet<>(results).size());
+    	}
+    	for (Graph<String> g: graphs) {
+    		assertEquals(graphs.get(0).vertices(), g.vertices());
+    		for (String v: g.vertices()) {
+    			assertEquals(graphs.get(0).targets(v), g.targets(v));
+    			assertEquals(graphs.get(0).sources(v), g.sources(v));
+    		}
+    	}
+    }
+    
+    /**
+     * Break the rep of a graph with edges A -> B and D -> E and vertex C,
+     * then set the weight of an edge repeatedly.
+     * @return true iff an AssertionError was thrown
+     */
+    private boolean detectsCorruption(ValidationMode mode, String source,
+    		String target) throws ReflectiveOperationException {
+    	Graph<String> g = emptyInstance(ViewMode.COPY, mode);
+    	g.set("A", "B", 1);
+    	g.set("D", "E", 1);
+    	g.add("C");
+    	corruptEdge(g, "A", "C");
+    	try {
+    		for (int i = 0; i < 100; i++)
+    			g.set(source, target, i % 5 + 1);
+    	} catch (AssertionError e) {
+    		return true;
+    	}
+    	return false;
+    }
+    
+    @Test
+    public void testValidationDetectsCorruption() throws Exception {
+    	for (ValidationMode mode: Arrays.asList(ValidationMode.SAMPLED,
+    			ValidationMode.INCREMENTAL, ValidationMode.FULL))
+    		assertTrue("expected " + mode + " to find the broken edge",
+    				detectsCorruption(mode, "A", "B"));
+    	assertFalse("expected OFF not to check",
+    			detectsCorruption(ValidationMode.OFF, "A", "B"));
+    }
+    
+    @Test
+    public void testValidationIncrementalOnlyChecksTouched() throws Exception {
+    	assertFalse("expected INCREMENTAL not to scan the whole rep",
+    			detectsCorruption(ValidationMode.INCREMENTAL, "D", "E"));
+    	assertTrue("expected FULL to scan the whole rep",
+    			detectsCorruption(ValidationMode.FULL, "D", "E"));
+    }
+    
+    @Test
+    public void testValidationFullCheckCount() throws Exception {
+    	int operations = 1000;
+    	for (ValidationMode mode: ValidationMode.values()) {
+    		Graph<String> g = emptyInstance(ViewMode.COPY, mode);
+    		Random random = new Random(25);
+    		for (int i = 0; i < 600; i++)
+    			g.set("v" + random.nextInt(100), "w" + random.nextInt(100), 1);
+    		long size = g.vertices().size();
+    		for (String v: g.vertices())
+    			size += g.targets(v).size();
+    		
+    		RepValidator validator = field(g, "validator");
+    		long before = validator.fullChecks();
+    		for (int i = 0; i < operations; i++)
+    			g.targets("v" + i % 100);
+    		long checks = validator.fullChecks() - before;
+    		
+    		long spacing = size / ValidationMode.SAMPLED_COST + 1;
+    		switch (mode) {
+    		case FULL:
+    			assertEquals("expected a full check per operation", operations, checks);
+    			break;
+    		case SAMPLED:
+    			assertTrue("expected a full check every " + spacing
+    					+ " operations, was " + checks,
+    					checks >= operations / spacing
+    					&& checks <= operations / spacing + 1);
+    			break;
+    		default:
+    			assertEquals("expected no full checks in " + mode, 0, checks);
+    		}
+    	}
+    }
+    
+}
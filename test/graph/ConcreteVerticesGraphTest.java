@@ -12,18 +12,30 @@ import org.junit.Test;
 /**
  * Tests for ConcreteVerticesGraph.
  * 
- * This class runs the GraphInstanceTest tests against ConcreteVerticesGraph, as
+ * This class runs the ConcreteGraphTest tests against ConcreteVerticesGraph, as
  * well as tests for that particular implementation.
  * 
  * Tests against the Graph spec should be in GraphInstanceTest.
  */
-public class ConcreteVerticesGraphTest extends GraphInstanceTest {
+public class ConcreteVerticesGraphTest extends ConcreteGraphTest {
     
     /*
-     * Provide a ConcreteVerticesGraph for tests in GraphInstanceTest.
+     * Provide a ConcreteVerticesGraph for tests in ConcreteGraphTest.
      */
-    @Override public Graph<String> emptyInstance() {
-        return new ConcreteVerticesGraph<String>();
+    @Override public Graph<String> emptyInstance(ViewMode viewMode,
+    		ValidationMode validation) {
+        return new ConcreteVerticesGraph<String>(viewMode, validation);
+    }
+    
+    /*
+     * Break the rep for tests in ConcreteGraphTest: add an edge to the
+     * outward edges of the source only.
+     */
+    @Override public void corruptEdge(Graph<String> graph, String source,
+    		String target) throws ReflectiveOperationException {
+    	Map<String, Vertex<String>> vertices = field(graph, "vertices");
+    	Map<Vertex<String>, Integer> edges = field(vertices.get(source), "edges");
+    	edges.put(vertices.get(target), 5);
     }
     
     /*
@@ -78,6 +90,7 @@ public class ConcreteVerticesGraphTest extends GraphInstanceTest {
      * - set a nonexistent edge to zero
      * - set an existent edge to zero
      * - set an existent edge to a new value
+     * - inward edges of the target mirror each of the above
      */
     @Test
     public void testSetEdgeToNewEdge() {
@@ -142,6 +155,42 @@ public class ConcreteVerticesGraphTest extends GraphInstanceTest {
     			1, outwardEdges.size());
     }
     
+    @Test
+    public void testSetEdgeToUpdatesInwardEdges() {
+    	Vertex<String> a = new Vertex<>("A");
+    	Vertex<String> b = new Vertex<>("B");
+    	
+    	a.setEdgeTo(b, 1);
+    	assertEquals("expected B to have an inward edge from A of weight 1",
+    			Integer.valueOf(1), b.getInwardEdges().get(a));
+    	a.setEdgeTo(b, 3);
+    	assertEquals("expected B's inward edge to follow the new weight",
+    			Integer.valueOf(3), b.getInwardEdges().get(a));
+    	a.setEdgeTo(b, 0);
+    	assertTrue("expected no inward edges at B",
+    			b.getInwardEdges().isEmpty());
+    	assertTrue("expected no inward edges at A",
+    			a.getInwardEdges().isEmpty());
+    }
+    
+    @Test
+    public void testClearEdges() {
+    	Vertex<String> a = new Vertex<>("A");
+    	Vertex<String> b = new Vertex<>("B");
+    	Vertex<String> c = new Vertex<>("C");
+    	
+    	a.setEdgeTo(b, 1);
+    	b.setEdgeTo(c, 2);
+    	c.setEdgeTo(b, 3);
+    	b.clearEdges();
+    	
+    	assertTrue("expected no edges from A", a.getOutwardEdges().isEmpty());
+    	assertTrue("expected no edges from C", c.getOutwardEdges().isEmpty());
+    	assertTrue("expected no edges into C", c.getInwardEdges().isEmpty());
+    	assertTrue("expected no edges at B", 
+    			b.getOutwardEdges().isEmpty() && b.getInwardEdges().isEmpty());
+    }
+    
     /*
      * Tests for Vertex.toString()
      * partitions:
@@ -0,0 +1,175 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Tests for ConcurrentGraph.
+ * 
+ * This class runs the GraphInstanceTest tests against ConcurrentGraph, as
+ * well as stress tests which check the same behaviour when many threads
+ * use one graph at once.
+ * 
+ * Tests against the Graph spec should be in GraphInstanceTest.
+ */
+public class ConcurrentGraphTest extends GraphInstanceTest {
+    
+    private static final int THREADS = 8;
+    
+    /*
+     * Provide a ConcurrentGraph for tests in GraphInstanceTest.
+     */
+    @Override public Graph<String> emptyInstance() {
+        return new ConcurrentGraph<String>();
+    }
+    
+    /*
+     * Stress testing strategy:
+     * - increment the same edges from many threads: no increment is lost
+     * - add the same vertices from many threads: each add succeeds once
+     * - set and clear the same edges from many threads: sources() and
+     *   targets() agree once the threads finish
+     * - remove vertices while other threads add edges to them: no edge is
+     *   left pointing at a removed vertex
+     * 
+     * Each test starts all its threads together, then checks the rep
+     * invariant and the observers once every thread has finished.
+     */
+    
+    /**
+     * Run a task on THREADS threads at once, passing each its thread index,
+     * and wait for them all to finish.
+     */
+    private static <T> List<T> runConcurrently(ThreadTask<T> task) throws Exception {
+    	ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+    	CountDownLatch start = new CountDownLatch(1);
+    	try {
+    		List<Future<T>> futures = new ArrayList<>();
+    		for (int i = 0; i < THREADS; i++) {
+    			final int thread = i;
+    			futures.add(pool.submit((Callable<T>) () -> {
+    				start.await();
+    				return task.run(thread);
+    			}));
+    		}
+    		start.countDown();
+    		List<T> results = new ArrayList<>();
+    		for (Future<T> f: futures)
+    			results.add(f.get());
+    		return results;
+    	} finally {
+    		pool.shutdownNow();
+    	}
+    }
+    
+    private interface ThreadTask<T> {
+    	T run(int thread) throws Exception;
+    }
+    
+    @Test
+    public void testConcurrentIncrements() throws Exception {
+    	ConcurrentGraph<String> g = new ConcurrentGraph<>();
+    	final int increments = 20000;
+    	runConcurrently(thread -> {
+    		for (int i = 0; i < increments; i++)
+    			g.set("v" + (i % 4), "v" + ((i + 1) % 4));
+    		return null;
+    	});
+    	assertTrue("expected rep invariant to hold", g.checkRep());
+    	for (int i = 0; i < 4; i++) {
+    		String s = "v" + i, t = "v" + ((i + 1) % 4);
+    		assertEquals("expected every increment of " + s + ">" + t,
+    				Integer.valueOf(THREADS * increments / 4), g.targets(s).get(t));
+    		assertEquals("expected sources to agree with targets",
+    				g.targets(s).get(t), g.sources(t).get(s));
+    	}
+    }
+    
+    @Test
+    public void testConcurrentAdds() throws Exception {
+    	ConcurrentGraph<String> g = new ConcurrentGraph<>();
+    	final int vertices = 1000;
+    	List<Integer> added = runConcurrently(thread -> {
+    		int n = 0;
+    		for (int i = 0; i < vertices; i++)
+    			if (g.add("v" + i))
+    				n++;
+    		return n;
+    	});
+    	int total = 0;
+    	for (int n: added)
+    		total += n;
+    	assertEquals("expected each vertex to be added exactly once", vertices, total);
+    	assertEquals(vertices, g.vertices().size());
+    }
+    
+    @Test
+    public void testConcurrentSetAndClear() throws Exception {
+    	ConcurrentGraph<String> g = new ConcurrentGraph<>();
+    	runConcurrently(thread -> {
+    		for (int i = 0; i < 20000; i++) {
+    			String s = "v" + (i % 5), t = "v" + ((i * 7 + thread) % 5);
+    			if (s.equals(t))
+    				continue;
+    			if ((i + thread) % 3 == 0)
+    				g.set(s, t, 0);
+    			else if ((i + thread) % 3 == 1)
+    				g.set(s, t, thread + 1);
+    			else
+    				g.set(s, t);
+    		}
+    		return null;
+    	});
+    	assertTrue("expected rep invariant to hold", g.checkRep());
+    	for (String v: g.vertices())
+    		for (Map.Entry<String, Integer> e: g.targets(v).entrySet()) {
+    			assertTrue("expected positive weight", e.getValue() > 0);
+    			assertEquals("expected sources to agree with targets",
+    					e.getValue(), g.sources(e.getKey()).get(v));
+    		}
+    }
+    
+    @Test
+    public void testConcurrentRemoveAndSet() throws Exception {
+    	ConcurrentGraph<String> g = new ConcurrentGraph<>();
+    	AtomicInteger removals = new AtomicInteger();
+    	runConcurrently(thread -> {
+    		for (int i = 0; i < 20000; i++) {
+    			String hub = "hub" + (i % 2);
+    			if (thread % 2 == 0) {
+    				if (g.remove(hub))
+    					removals.incrementAndGet();
+    			} else {
+    				g.set("leaf" + thread + "_" + (i % 10), hub);
+    				g.set(hub, "leaf" + thread + "_" + (i % 10));
+    			}
+    		}
+    		return null;
+    	});
+    	assertTrue("expected some removals to succeed", removals.get() > 0);
+    	assertTrue("expected rep invariant to hold", g.checkRep());
+    	Set<String> vertices = g.vertices();
+    	for (String v: vertices) {
+    		assertTrue("expected no edges to removed vertices",
+    				vertices.containsAll(g.targets(v).keySet()));
+    		assertTrue("expected no edges from removed vertices",
+    				vertices.containsAll(g.sources(v).keySet()));
+    	}
+    }
+    
+}
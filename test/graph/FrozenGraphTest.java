@@ -0,0 +1,185 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for FrozenGraph.
+ * 
+ * FrozenGraph is immutable, so it cannot run the GraphInstanceTest tests,
+ * which build graphs through the mutators; instead each test builds a
+ * mutable graph and checks that its snapshot has the same vertices and
+ * edges.
+ */
+public class FrozenGraphTest {
+    
+    /*
+     * Testing strategy for of():
+     * - graph: empty, vertices without edges, edges in both directions,
+     *   vertex with many edges (to check the sorted slices)
+     * - snapshot of a snapshot returns the same instance
+     * - later changes to the source graph do not change the snapshot
+     * 
+     * Observers: vertices(), sources(), targets() match the source graph,
+     * including get() of absent labels and labels of other vertices.
+     * Mutators: add(), both set()s and remove() throw.
+     * twoHop(): slices of similar length (merged) and of very different
+     *   length (binary searched), both directions, missing vertices
+     * plus(): empty delta, delta with new vertices, edges only in this
+     *   graph, only in delta, and in both; this graph is unchanged
+     * Views: cannot be modified.
+     */
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    private static void assertSameGraph(Graph<String> expected, Graph<String> actual) {
+    	assertEquals(expected.vertices(), actual.vertices());
+    	for (String v: expected.vertices()) {
+    		assertEquals("targets of " + v, expected.targets(v), actual.targets(v));
+    		assertEquals("sources of " + v, expected.sources(v), actual.sources(v));
+    		for (String w: expected.vertices())
+    			assertEquals(expected.targets(v).get(w), actual.targets(v).get(w));
+    	}
+    }
+    
+    @Test
+    public void testEmpty() {
+    	FrozenGraph<String> g = FrozenGraph.of(Graph.<String>empty());
+    	assertEquals(Collections.emptySet(), g.vertices());
+    	assertEquals(Collections.emptyMap(), g.targets("A"));
+    }
+    
+    @Test
+    public void testSameVerticesAndEdges() {
+    	Graph<String> g = new ConcreteEdgesGraph<>();
+    	g.add("lonely");
+    	g.set("A", "B", 1);
+    	g.set("B", "A", 2);
+    	g.set("A", "C", 3);
+    	for (int i = 0; i < 50; i++) {
+    		g.set("hub", "spoke" + i, i + 1);
+    		g.set("spoke" + i, "hub", 50 - i);
+    	}
+    	FrozenGraph<String> frozen = FrozenGraph.of(g);
+    	assertSameGraph(g, frozen);
+    	assertNull("expected no weight for a label that is not a target",
+    			frozen.targets("A").get("lonely"));
+    	assertNull("expected no weight for an unknown label",
+    			frozen.targets("A").get("unknown"));
+    	assertSame(frozen, FrozenGraph.of(frozen));
+    }
+    
+    @Test
+    public void testIndependentOfSource() {
+    	Graph<String> g = new ConcreteVerticesGraph<>();
+    	g.set("A", "B", 1);
+    	FrozenGraph<String> frozen = FrozenGraph.of(g);
+    	g.set("A", "B", 5);
+    	g.set("B", "C", 1);
+    	g.remove("A");
+    	assertEquals(new HashSet<>(Arrays.asList("A", "B")), frozen.vertices());
+    	assertEquals(Collections.singletonMap("B", 1), frozen.targets("A"));
+    	assertEquals(Collections.singletonMap("A", 1), frozen.sources("B"));
+    }
+    
+    @Test
+    public void testMutatorsThrow() {
+    	Graph<String> g = new ConcreteEdgesGraph<>();
+    	g.set("A", "B", 1);
+    	FrozenGraph<String> frozen = FrozenGraph.of(g);
+    	try {
+    		frozen.add("C");
+    		fail("expected add() to throw");
+    	} catch (UnsupportedOperationException e) { }
+    	try {
+    		frozen.set("A", "B", 2);
+    		fail("expected set() to throw");
+    	} catch (UnsupportedOperationException e) { }
+    	try {
+    		frozen.set("A", "B");
+    		fail("expected set() to throw");
+    	} catch (UnsupportedOperationException e) { }
+    	try {
+    		frozen.remove("A");
+    		fail("expected remove() to throw");
+    	} catch (UnsupportedOperationException e) { }
+    	assertSameGraph(g, frozen);
+    }
+    
+    @Test(expected=UnsupportedOperationException.class)
+    public void testTargetsUnmodifiable() {
+    	Graph<String> g = new ConcreteEdgesGraph<>();
+    	g.set("A", "B", 1);
+    	Map<String, Integer> targets = FrozenGraph.of(g).targets("A");
+    	targets.put("C", 1);
+    }
+    
+    @Test(expected=UnsupportedOperationException.class)
+    public void testVerticesUnmodifiable() {
+    	Graph<String> g = new ConcreteEdgesGraph<>();
+    	g.add("A");
+    	FrozenGraph.of(g).vertices().clear();
+    }
+    
+    @Test
+    public void testPlus() {
+    	Graph<String> g = new ConcreteEdgesGraph<>();
+    	g.add("lonely");
+    	g.set("A", "B", 1);
+    	g.set("A", "D", 2);
+    	g.set("B", "A", 3);
+    	FrozenGraph<String> frozen = FrozenGraph.of(g);
+    	assertSameGraph(g, frozen.plus(Graph.<String>empty()));
+    	
+    	Graph<String> delta = new ConcreteVerticesGraph<>();
+    	delta.set("A", "B", 5);
+    	delta.set("A", "C", 1);
+    	delta.set("new", "A", 2);
+    	delta.add("newer");
+    	FrozenGraph<String> sum = frozen.plus(delta);
+    	
+    	g.set("A", "B", 6);
+    	g.set("A", "C", 1);
+    	g.set("new", "A", 2);
+    	g.add("newer");
+    	assertSameGraph(g, sum);
+    	assertEquals("expected this graph to be unchanged",
+    			Collections.singletonMap("A", 1), frozen.sources("B"));
+    }
+    
+    @Test
+    public void testTwoHopRandom() {
+    	Random random = new Random(6005);
+    	for (int trial = 0; trial < 20; trial++) {
+    		Graph<String> g = new ConcreteEdgesGraph<>();
+    		int n = 5 + random.nextInt(60);
+    		for (int e = 0; e < n * 3; e++) {
+    			// skew towards low-numbered hubs for very different degrees
+    			String s = "v" + random.nextInt(1 + random.nextInt(n));
+    			String t = "v" + random.nextInt(n);
+    			if (!s.equals(t))
+    				g.set(s, t, 1 + random.nextInt(5));
+    		}
+    		FrozenGraph<String> frozen = FrozenGraph.of(g);
+    		for (String a: g.vertices())
+    			for (String b: g.vertices())
+    				assertEquals(a + " to " + b, Graphs.twoHop(g, a, b),
+    						Graphs.twoHop(frozen, a, b));
+    		assertTrue(Graphs.twoHop(frozen, "v0", "missing").isEmpty());
+    	}
+    }
+    
+}
@@ -0,0 +1,136 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for GraphFormat.
+ */
+public class GraphFormatTest {
+    
+    /*
+     * Testing strategy:
+     * - round trip: empty graph, vertices without edges, edges in both
+     *   directions, self-loops, non-ASCII labels, weights and ids that
+     *   need multi-byte varints; through a byte buffer and through a memory-mapped file
+     * - invalid input: too short, bad magic number, unsupported version,
+     *   corrupted byte (checksum), truncated
+     */
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    private static void assertSameGraph(Graph<String> expected, Graph<String> actual) {
+    	assertEquals(expected.vertices(), actual.vertices());
+    	for (String v: expected.vertices()) {
+    		assertEquals("targets of " + v, expected.targets(v), actual.targets(v));
+    		assertEquals("sources of " + v, expected.sources(v), actual.sources(v));
+    	}
+    }
+    
+    private static byte[] bytes(Graph<String> graph) throws IOException {
+    	ByteArrayOutputStream out = new ByteArrayOutputStream();
+    	GraphFormat.write(graph, out);
+    	return out.toByteArray();
+    }
+    
+    private static Graph<String> sample() {
+    	Graph<String> g = new ConcreteEdgesGraph<>();
+    	g.add("lonely");
+    	g.set("a", "b", 1);
+    	g.set("b", "a", 2);
+    	g.set("a", "caf\u00e9", 300);
+    	g.set("\u4e16\u754c", "a", Integer.MAX_VALUE);
+    	for (int i = 0; i < 200; i++)
+    		g.set("hub", "w" + i, i + 1);
+    	return g;
+    }
+    
+    @Test
+    public void testRoundTripEmpty() throws IOException {
+    	Graph<String> g = Graph.empty();
+    	assertSameGraph(g, GraphFormat.read(ByteBuffer.wrap(bytes(g))));
+    }
+    
+    @Test
+    public void testRoundTripSelfLoops() throws IOException {
+    	Graph<String> g = new IntAdjacencyGraph<>();
+    	g.set("a", "a", 3);
+    	g.set("a", "b", 1);
+    	g.set("b", "b", 200);
+    	assertSameGraph(g, GraphFormat.read(ByteBuffer.wrap(bytes(g))));
+    }
+    
+    @Test
+    public void testRoundTrip() throws IOException {
+    	Graph<String> g = sample();
+    	ByteBuffer buffer = ByteBuffer.wrap(bytes(g));
+    	assertSameGraph(g, GraphFormat.read(buffer));
+    	assertFalse("expected whole buffer to be read", buffer.hasRemaining());
+    }
+    
+    @Test
+    public void testSaveLoadFile() throws IOException {
+    	Graph<String> g = sample();
+    	Path file = folder.newFile("sample.graph").toPath();
+    	GraphFormat.save(g, file);
+    	assertSameGraph(g, GraphFormat.load(file));
+    }
+    
+    @Test
+    public void testTooShort() {
+    	assertInvalid(new byte[] { 'P', 'S', '2' });
+    }
+    
+    @Test
+    public void testBadMagic() throws IOException {
+    	byte[] bytes = bytes(sample());
+    	bytes[0] = 'X';
+    	assertInvalid(bytes);
+    }
+    
+    @Test
+    public void testUnsupportedVersion() throws IOException {
+    	byte[] bytes = bytes(sample());
+    	bytes[4] = GraphFormat.VERSION + 1;
+    	assertInvalid(bytes);
+    }
+    
+    @Test
+    public void testCorrupted() throws IOException {
+    	byte[] bytes = bytes(sample());
+    	bytes[bytes.length / 2] ^= 1;
+    	assertInvalid(bytes);
+    }
+    
+    @Test
+    public void testTruncated() throws IOException {
+    	byte[] bytes = bytes(sample());
+    	assertInvalid(Arrays.copyOf(bytes, bytes.length - 1));
+    }
+    
+    private static void assertInvalid(byte[] bytes) {
+    	try {
+    		GraphFormat.read(ByteBuffer.wrap(bytes));
+    		fail("expected IOException");
+    	} catch (IOException e) { }
+    }
+    
+}
@@ -7,7 +7,9 @@ import static org.junit.Assert.*;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import org.junit.Test;
@@ -45,6 +47,23 @@ public abstract class GraphInstanceTest {
      *  - already existing edge, 0 weight (remove edge)
      *  - creation of new edge, nonzero weight
      *  - creation of new edge, 0 weight (nothing should happen)
+     *  - creation of new edge between vertices not yet in the graph
+     *  
+     * sources(), targets():
+     *  - observed after edges are removed by remove()
+     * 
+     * Graphs.twoHop():
+     *  - no paths, one path, several paths, source or target not in graph
+     *  - more targets of source than sources of target, and fewer
+     * 
+     * Graphs.likeliestPath():
+     *  - path found: direct edge, two edges, more edges
+     *  - likeliest path has more than maxHops edges, fewer than minHops
+     *  - a vertex is reached more cheaply with more edges than maxHops
+     *    allows on the way to target
+     *  - the only path with at least minHops edges revisits a vertex
+     *    already expanded with fewer edges
+     *  - budget runs out, source not in graph, bad arguments
      */
     
     /**
@@ -218,6 +237,17 @@ public abstract class GraphInstanceTest {
     	
     }
     
+    @Test
+    public void testNewEdgeAddsVertices() {
+    	Graph<String> g = emptyInstance();
+    	assertEquals("expected 0 return from setting new edge",
+    			0, g.set("A", "B", 3));
+    	assertEquals("expected set() to add both vertices",
+    			new HashSet<>(Arrays.asList("A", "B")), g.vertices());
+    	assertEquals("expected A>B edge of value 3",
+    			Integer.valueOf(3), g.sources("B").get("A"));
+    }
+    
     /*
      * Tests of remove() method
      */
@@ -326,4 +356,110 @@ public abstract class GraphInstanceTest {
     	assertTrue("expected exactly 1 edge from A", 
     			g.targets("A").keySet().size() == 1);
     }
+    
+    @Test
+    public void testRemoveUpdatesSourcesAndTargets() {
+    	Graph<String> g = emptyInstance();
+    	g.set("A", "B", 1);
+    	g.set("B", "C", 2);
+    	g.set("C", "B", 3);
+    	g.set("A", "C", 4);
+    	
+    	g.remove("B");
+    	
+    	assertEquals("expected only A as a source of C",
+    			Collections.singletonMap("A", 4), g.sources("C"));
+    	assertEquals("expected only C as a target of A",
+    			Collections.singletonMap("C", 4), g.targets("A"));
+    	assertTrue("expected no edges from C", g.targets("C").isEmpty());
+    	assertTrue("expected no edges into removed B", g.sources("B").isEmpty());
+    	assertTrue("expected no edges from removed B", g.targets("B").isEmpty());
+    }
+    
+    @Test
+    public void testTwoHop() {
+    	Graph<String> g = emptyInstance();
+    	g.set("A", "B", 1);
+    	g.set("B", "C", 2);
+    	g.set("A", "D", 3);
+    	g.set("D", "C", 4);
+    	g.set("A", "E", 5);
+    	g.set("C", "A", 6);
+    	
+    	Map<String, Integer> expected = new HashMap<>();
+    	expected.put("B", 3);
+    	expected.put("D", 7);
+    	assertEquals(expected, Graphs.twoHop(g, "A", "C"));
+    	assertEquals(Collections.singletonMap("C", 8), Graphs.twoHop(g, "B", "A"));
+    	assertTrue("expected no paths from E", Graphs.twoHop(g, "E", "C").isEmpty());
+    	assertTrue("expected no paths from missing vertex",
+    			Graphs.twoHop(g, "Z", "C").isEmpty());
+    	
+    	for (int i = 0; i < 10; i++)
+    		g.set("X" + i, "C", 1);
+    	assertEquals("expected the same paths with more sources of C",
+    			expected, Graphs.twoHop(g, "A", "C"));
+    }
+    
+    @Test
+    public void testLikeliestPath() {
+    	Graph<String> g = emptyInstance();
+    	g.set("A", "B", 1);
+    	g.set("A", "C", 1);
+    	g.set("A", "T", 2);
+    	g.set("B", "T", 1);
+    	g.set("B", "X", 1);
+    	g.set("C", "E", 1);
+    	g.set("E", "T", 1);
+    	
+    	// A T: 1/2, A C E T: 1/4, A B T: 1/8
+    	assertEquals(Arrays.asList("A", "T"), Graphs.likeliestPath(g, "A", "T", 1, 3, 100));
+    	assertEquals(Arrays.asList("A", "C", "E", "T"),
+    			Graphs.likeliestPath(g, "A", "T", 2, 3, 100));
+    	assertEquals(Arrays.asList("A", "B", "T"),
+    			Graphs.likeliestPath(g, "A", "T", 2, 2, 100));
+    	assertEquals("expected the best direct edge when only A is expanded",
+    			Arrays.asList("A", "T"), Graphs.likeliestPath(g, "A", "T", 1, 3, 1));
+    	assertTrue("expected no path found when only A is expanded",
+    			Graphs.likeliestPath(g, "A", "T", 2, 3, 1).isEmpty());
+    	assertTrue("expected no path from T",
+    			Graphs.likeliestPath(g, "T", "A", 1, 5, 100).isEmpty());
+    	assertTrue("expected no path from missing vertex",
+    			Graphs.likeliestPath(g, "Z", "T", 1, 5, 100).isEmpty());
+    }
+    
+    @Test
+    public void testLikeliestPathHopLimit() {
+    	Graph<String> g = emptyInstance();
+    	g.set("S", "W", 9);
+    	g.set("S", "X", 1);
+    	g.set("W", "X", 1);
+    	g.set("X", "T", 1);
+    	
+    	// X is reached more likely through W, but then T is 3 edges away
+    	assertEquals(Arrays.asList("S", "W", "X", "T"),
+    			Graphs.likeliestPath(g, "S", "T", 2, 3, 100));
+    	assertEquals(Arrays.asList("S", "X", "T"),
+    			Graphs.likeliestPath(g, "S", "T", 2, 2, 100));
+    }
+    
+    @Test
+    public void testLikeliestPathRevisitsVertex() {
+    	Graph<String> g = emptyInstance();
+    	g.set("S", "A", 10);
+    	g.set("S", "B", 1);
+    	g.set("B", "A", 10);
+    	g.set("A", "T", 1);
+    	
+    	// A is expanded first after one edge, where T is too close
+    	assertEquals(Arrays.asList("S", "B", "A", "T"),
+    			Graphs.likeliestPath(g, "S", "T", 3, 3, 100000));
+    	assertEquals(Arrays.asList("S", "A", "T"),
+    			Graphs.likeliestPath(g, "S", "T", 2, 3, 100000));
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testLikeliestPathMaxHopsBelowMinHops() {
+    	Graphs.likeliestPath(emptyInstance(), "A", "B", 3, 2, 100);
+    }
 }
@@ -0,0 +1,104 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for IntAdjacencyGraph.
+ * 
+ * This class runs the GraphInstanceTest tests against IntAdjacencyGraph, as
+ * well as tests for that particular implementation.
+ * 
+ * Tests against the Graph spec should be in GraphInstanceTest.
+ */
+public class IntAdjacencyGraphTest extends GraphInstanceTest {
+    
+    /*
+     * Provide an IntAdjacencyGraph for tests in GraphInstanceTest.
+     */
+    @Override public Graph<String> emptyInstance() {
+        return new IntAdjacencyGraph<String>();
+    }
+    
+    /*
+     * Testing IntAdjacencyGraph:
+     * - ids of removed vertices are reused without reviving their edges
+     * - self-loops survive until their vertex is removed
+     */
+    @Test
+    public void testRemovedIdReused() {
+    	Graph<String> g = emptyInstance();
+    	g.set("A", "B", 1);
+    	g.set("B", "C", 2);
+    	g.remove("B");
+    	g.add("D");
+    	assertTrue("expected no edges for a vertex reusing B's id",
+    			g.targets("D").isEmpty() && g.sources("D").isEmpty());
+    	g.set("D", "A", 3);
+    	assertEquals(Collections.singletonMap("D", 3), g.sources("A"));
+    	assertTrue("expected no edges from A", g.targets("A").isEmpty());
+    }
+    
+    @Test
+    public void testSelfLoop() {
+    	Graph<String> g = emptyInstance();
+    	g.set("A", "A", 2);
+    	g.set("A", "A");
+    	assertEquals(Collections.singletonMap("A", 3), g.targets("A"));
+    	assertEquals(Collections.singletonMap("A", 3), g.sources("A"));
+    	assertTrue(g.remove("A"));
+    	assertTrue(g.vertices().isEmpty());
+    }
+    
+    /*
+     * Testing IntIntMap:
+     * - get, put and remove of absent and present keys
+     * - many random operations, compared against a HashMap, across
+     *   growing and shrinking
+     */
+    @Test
+    public void testIntIntMapBasics() {
+    	IntIntMap m = new IntIntMap();
+    	assertEquals(0, m.get(5));
+    	assertEquals(0, m.put(5, 1));
+    	assertEquals(1, m.put(5, 7));
+    	assertEquals(7, m.get(5));
+    	assertEquals(1, m.size());
+    	assertEquals(0, m.remove(6));
+    	assertEquals(7, m.remove(5));
+    	assertEquals(0, m.size());
+    	assertTrue(m.checkRep());
+    }
+    
+    @Test
+    public void testIntIntMapRandomOperations() {
+    	IntIntMap m = new IntIntMap();
+    	Map<Integer, Integer> expected = new HashMap<>();
+    	Random random = new Random(6005);
+    	for (int i = 0; i < 100000; i++) {
+    		int key = random.nextInt(i < 50000 ? 2000 : 100);
+    		if (random.nextInt(3) == 0) {
+    			Integer old = expected.remove(key);
+    			assertEquals(old == null ? 0 : (int) old, m.remove(key));
+    		} else {
+    			int value = 1 + random.nextInt(1000);
+    			Integer old = expected.put(key, value);
+    			assertEquals(old == null ? 0 : (int) old, m.put(key, value));
+    		}
+    	}
+    	assertTrue(m.checkRep());
+    	assertEquals(expected.size(), m.size());
+    	for (int key = 0; key < 2000; key++)
+    		assertEquals(expected.getOrDefault(key, 0).intValue(), m.get(key));
+    }
+    
+}
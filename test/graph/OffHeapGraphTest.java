@@ -0,0 +1,147 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for OffHeapGraph.
+ * 
+ * This class runs the GraphInstanceTest tests against OffHeapGraph, as
+ * well as tests for that particular implementation.
+ * 
+ * Tests against the Graph spec should be in GraphInstanceTest.
+ */
+public class OffHeapGraphTest extends GraphInstanceTest {
+    
+    /*
+     * Provide an OffHeapGraph for tests in GraphInstanceTest.
+     */
+    @Override public Graph<String> emptyInstance() {
+        return new OffHeapGraph<String>();
+    }
+    
+    /*
+     * Testing OffHeapGraph:
+     * - ids of removed vertices are reused without reviving their edges
+     * - self-loops survive until their vertex is removed
+     * - random operations give the same graph as IntAdjacencyGraph
+     */
+    @Test
+    public void testRemovedIdReused() {
+    	Graph<String> g = emptyInstance();
+    	g.set("A", "B", 1);
+    	g.set("B", "C", 2);
+    	g.remove("B");
+    	g.add("D");
+    	assertTrue("expected no edges for a vertex reusing B's id",
+    			g.targets("D").isEmpty() && g.sources("D").isEmpty());
+    	g.set("D", "A", 3);
+    	assertEquals(Collections.singletonMap("D", 3), g.sources("A"));
+    	assertTrue("expected no edges from A", g.targets("A").isEmpty());
+    }
+    
+    @Test
+    public void testSelfLoop() {
+    	Graph<String> g = emptyInstance();
+    	g.set("A", "A", 2);
+    	g.set("A", "A");
+    	assertEquals(Collections.singletonMap("A", 3), g.targets("A"));
+    	assertEquals(Collections.singletonMap("A", 3), g.sources("A"));
+    	assertTrue(g.remove("A"));
+    	assertTrue(g.vertices().isEmpty());
+    }
+    
+    @Test
+    public void testRandomOperations() {
+    	Graph<String> g = emptyInstance();
+    	Graph<String> expected = new IntAdjacencyGraph<>();
+    	Random random = new Random(6005);
+    	for (int i = 0; i < 3000; i++) {
+    		String s = "v" + random.nextInt(40), t = "v" + random.nextInt(40);
+    		switch (random.nextInt(6)) {
+    		case 0:
+    			assertEquals(expected.remove(s), g.remove(s));
+    			break;
+    		case 1:
+    			assertEquals(expected.set(s, t, 0), g.set(s, t, 0));
+    			break;
+    		case 2:
+    			expected.set(s, t);
+    			g.set(s, t);
+    			break;
+    		default:
+    			int weight = 1 + random.nextInt(100);
+    			assertEquals(expected.set(s, t, weight), g.set(s, t, weight));
+    		}
+    	}
+    	assertEquals(expected.vertices(), g.vertices());
+    	for (String v: expected.vertices()) {
+    		assertEquals(expected.targets(v), g.targets(v));
+    		assertEquals(expected.sources(v), g.sources(v));
+    	}
+    }
+    
+    /*
+     * Testing OffHeapIntMaps:
+     * - maps grow and shrink between blocks, reusing freed blocks
+     * - a map larger than a shared chunk gets a chunk of its own, which is
+     *   released when the map is cleared
+     */
+    @Test
+    public void testIntMapsRandomOperations() {
+    	OffHeapIntMaps maps = new OffHeapIntMaps(0);
+    	maps.ensureMaps(8);
+    	List<Map<Integer, Integer>> expected = new ArrayList<>();
+    	for (int m = 0; m < 8; m++)
+    		expected.add(new HashMap<>());
+    	Random random = new Random(6005);
+    	for (int i = 0; i < 100000; i++) {
+    		int m = random.nextInt(8);
+    		int key = random.nextInt(i < 50000 ? 2000 : 100);
+    		if (random.nextInt(3) == 0) {
+    			Integer old = expected.get(m).remove(key);
+    			assertEquals(old == null ? 0 : (int) old, maps.remove(m, key));
+    		} else {
+    			int value = 1 + random.nextInt(1000);
+    			Integer old = expected.get(m).put(key, value);
+    			assertEquals(old == null ? 0 : (int) old, maps.put(m, key, value));
+    		}
+    	}
+    	for (int m = 0; m < 8; m++) {
+    		assertTrue(maps.checkRep(m));
+    		assertEquals(expected.get(m).size(), maps.size(m));
+    		for (int key = 0; key < 2000; key++)
+    			assertEquals(expected.get(m).getOrDefault(key, 0).intValue(), maps.get(m, key));
+    	}
+    }
+    
+    @Test
+    public void testIntMapsOwnChunk() {
+    	OffHeapIntMaps maps = new OffHeapIntMaps(2);
+    	maps.put(1, 7, 7);
+    	int n = OffHeapIntMaps.CHUNK_SLOTS;
+    	for (int key = 0; key < n; key++)
+    		maps.put(0, key, key + 1);
+    	assertTrue(maps.capacity(0) > OffHeapIntMaps.CHUNK_SLOTS);
+    	assertEquals(n, maps.size(0));
+    	assertEquals(n, maps.get(0, n - 1));
+    	long before = maps.allocatedBytes();
+    	maps.clear(0);
+    	assertEquals("expected the map's own chunk to be released",
+    			before - 8L * (n * 2), maps.allocatedBytes());
+    	assertEquals(0, maps.get(0, 5));
+    	assertEquals(7, maps.get(1, 7));
+    }
+    
+}
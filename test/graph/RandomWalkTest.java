@@ -0,0 +1,119 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+/**
+ * Tests for RandomWalk.
+ */
+public class RandomWalkTest {
+    
+    /*
+     * Testing strategy for walk():
+     * - length: 0, 1, many
+     * - vertex: one edge, several edges of equal and unequal weights,
+     *   no outgoing edges
+     * - start: in the graph, not in the graph
+     * - same seed gives the same walk; the walk only follows edges
+     * - frequencies of steps match the edge weights
+     * 
+     * The alias tables are checked exactly by checkRep() with -ea, over
+     * graphs of many degrees and weights.
+     */
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    private static Graph<String> sample() {
+    	Graph<String> g = new ConcreteEdgesGraph<>();
+    	g.set("A", "B", 1);
+    	g.set("A", "C", 3);
+    	g.set("B", "C", 2);
+    	g.set("C", "A", 5);
+    	g.set("C", "B", 5);
+    	g.add("D");
+    	return g;
+    }
+    
+    @Test
+    public void testShortWalks() {
+    	RandomWalk<String> walk = RandomWalk.of(sample());
+    	SplittableRandom random = new SplittableRandom(1);
+    	assertEquals(Collections.emptyList(), walk.walk("A", 0, random));
+    	assertEquals(Arrays.asList("A"), walk.walk("A", 1, random));
+    	assertEquals(Arrays.asList("B", "C"), walk.walk("B", 2, random));
+    }
+    
+    @Test
+    public void testSameSeedSameWalk() {
+    	RandomWalk<String> walk = RandomWalk.of(sample());
+    	List<String> first = walk.walk("A", 1000, new SplittableRandom(6005));
+    	assertEquals(first, walk.walk("A", 1000, new SplittableRandom(6005)));
+    	assertNotEquals(first, walk.walk("A", 1000, new SplittableRandom(6006)));
+    }
+    
+    @Test
+    public void testFollowsEdgesByWeight() {
+    	Graph<String> g = sample();
+    	List<String> path = RandomWalk.of(g).walk("A", 200000, new SplittableRandom(42));
+    	Map<String, Integer> fromA = new HashMap<>();
+    	for (int i = 0; i + 1 < path.size(); i++) {
+    		String from = path.get(i), to = path.get(i + 1);
+    		if (!from.equals("D"))
+    			assertTrue("expected an edge " + from + " -> " + to,
+    					g.targets(from).containsKey(to));
+    		if (from.equals("A"))
+    			fromA.merge(to, 1, Integer::sum);
+    	}
+    	double toC = fromA.get("C") / (double) (fromA.get("B") + fromA.get("C"));
+    	assertEquals("expected A -> C in 3 of 4 steps from A", 0.75, toC, 0.01);
+    }
+    
+    @Test
+    public void testDeadEndContinues() {
+    	Graph<String> g = new ConcreteEdgesGraph<>();
+    	g.add("X");
+    	g.add("Y");
+    	List<String> path = RandomWalk.of(g).walk("X", 100, new SplittableRandom(3));
+    	assertEquals(100, path.size());
+    	assertTrue("expected the walk to reach Y", path.contains("Y"));
+    }
+    
+    @Test
+    public void testAliasTables() {
+    	SplittableRandom random = new SplittableRandom(7);
+    	for (int trial = 0; trial < 50; trial++) {
+    		Graph<String> g = new ConcreteEdgesGraph<>();
+    		int degree = 1 + random.nextInt(40);
+    		for (int i = 0; i < degree; i++)
+    			g.set("hub", "v" + i, 1 + random.nextInt(trial % 2 == 0 ? 3 : 1000));
+    		RandomWalk<String> walk = RandomWalk.of(g); // checkRep with -ea
+    		assertEquals(2, walk.walk("hub", 2, random).size());
+    	}
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testStartNotInGraph() {
+    	RandomWalk.of(sample()).walk("Z", 3, new SplittableRandom(1));
+    }
+    
+    @Test
+    public void testEmptyGraph() {
+    	RandomWalk<String> walk = RandomWalk.of(Graph.<String>empty());
+    	assertTrue(walk.isEmpty());
+    }
+    
+}
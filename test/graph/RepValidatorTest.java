@@ -0,0 +1,59 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Tests for RepValidator.
+ * 
+ * incremental() is only true when assertions are enabled, so these tests
+ * must run with the VM argument -ea, as testAssertionsEnabled checks.
+ */
+public class RepValidatorTest {
+    
+    /*
+     * Testing strategy for fullCheckDue():
+     * - FULL checks every operation, OFF and INCREMENTAL none
+     * - SAMPLED checks once per size / SAMPLED_COST + 1 operations
+     * 
+     * incremental(): true only in INCREMENTAL
+     */
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    @Test
+    public void testFullCheckDueByMode() {
+    	assertTrue(new RepValidator(ValidationMode.FULL).fullCheckDue(1000));
+    	assertFalse(new RepValidator(ValidationMode.OFF).fullCheckDue(1000));
+    	assertFalse(new RepValidator(ValidationMode.INCREMENTAL).fullCheckDue(1000));
+    }
+    
+    @Test
+    public void testFullCheckDueSampled() {
+    	RepValidator sampled = new RepValidator(ValidationMode.SAMPLED);
+    	int size = 4 * ValidationMode.SAMPLED_COST;
+    	int checks = 0;
+    	for (int i = 0; i < 50; i++)
+    		if (sampled.fullCheckDue(size))
+    			checks++;
+    	assertEquals("expected a check every 5 operations", 10, checks);
+    	assertEquals(checks, sampled.fullChecks());
+    }
+    
+    @Test
+    public void testIncremental() {
+    	assertTrue(new RepValidator(ValidationMode.INCREMENTAL).incremental());
+    	for (ValidationMode mode: new ValidationMode[] {ValidationMode.OFF,
+    			ValidationMode.SAMPLED, ValidationMode.FULL})
+    		assertFalse("expected no incremental checks in " + mode,
+    				new RepValidator(mode).incremental());
+    }
+    
+}
@@ -0,0 +1,89 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+/**
+ * Tests for AdjacencyCounter.
+ */
+public class AdjacencyCounterTest {
+    
+    /*
+     * Partitions for count():
+     * corpus: empty, one word, many words with repeats
+     * chunks: one chunk, chunks smaller than a word, many chunks per pool thread
+     */
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    private static Map<String, Map<String, Integer>> countSequentially(Path corpus)
+    		throws IOException {
+    	Map<String, Map<String, Integer>> counts = new HashMap<>();
+    	try (WordReader words = new WordReader(new InputStreamReader(
+    			Files.newInputStream(corpus), StandardCharsets.UTF_8))) {
+    		String previous = null;
+    		String word;
+    		while ((word = words.next()) != null) {
+    			word = word.toLowerCase();
+    			if (previous != null && !previous.equals(word))
+    				counts.computeIfAbsent(previous, w -> new HashMap<>())
+    						.merge(word, 1, Integer::sum);
+    			previous = word;
+    		}
+    	}
+    	return counts;
+    }
+    
+    private static Map<String, Map<String, Integer>> countInParallel(Path corpus,
+    		long chunkSize) throws IOException {
+    	try (FileChannel channel = FileChannel.open(corpus, StandardOpenOption.READ)) {
+    		return new AdjacencyCounter(channel, chunkSize).count(ForkJoinPool.commonPool());
+    	}
+    }
+    
+    @Test
+    public void testEmptyAndOneWord() throws IOException {
+    	assertEquals(Collections.emptyMap(),
+    			countInParallel(Paths.get("test/poet/empty.txt"), 1));
+    	assertEquals(Collections.emptyMap(),
+    			countInParallel(Paths.get("test/poet/case_sensitivity.txt"), 3));
+    }
+    
+    @Test
+    public void testMatchesSequentialCount() throws IOException {
+    	Path corpus = Paths.get("test/poet/multiple_paths.txt");
+    	Map<String, Map<String, Integer>> expected = countSequentially(corpus);
+    	for (long chunkSize = 1; chunkSize <= Files.size(corpus) + 1; chunkSize++)
+    		assertEquals("chunk size " + chunkSize, expected,
+    				countInParallel(corpus, chunkSize));
+    }
+    
+    @Test
+    public void testMatchesSequentialCountLargeCorpus() throws IOException {
+    	Path corpus = Paths.get("src/poet/shakespeare.txt");
+    	Map<String, Map<String, Integer>> expected = countSequentially(corpus);
+    	assertEquals(expected, countInParallel(corpus, 997));
+    	assertEquals(expected, countInParallel(corpus, AdjacencyCounter.DEFAULT_CHUNK_SIZE));
+    }
+    
+}
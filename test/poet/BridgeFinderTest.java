@@ -0,0 +1,121 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import graph.ConcreteEdgesGraph;
+import graph.FrozenGraph;
+import graph.Graph;
+
+/**
+ * Tests for BridgeFinder.
+ */
+public class BridgeFinderTest {
+    
+    /*
+     * Partitions for top(a, b, k):
+     * bridges: none, one, more than k, fewer than k
+     * scores: distinct, tied (ordered by String order)
+     * shorter side: out-edges of a, in-edges of b
+     * words: in the graph, not in the graph, without edges
+     * graph: mutable, frozen
+     * 
+     * Random graphs are checked against a search of every target of a.
+     */
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    private static Graph<String> sample() {
+    	Graph<String> g = new ConcreteEdgesGraph<>();
+    	g.add("lonely");
+    	g.set("a", "x", 1);
+    	g.set("x", "b", 1);
+    	g.set("a", "y", 3);
+    	g.set("y", "b", 1);
+    	g.set("a", "z", 1);
+    	g.set("z", "b", 3);
+    	g.set("a", "w", 5);
+    	g.set("a", "v", 1);
+    	g.set("v", "b", 2);
+    	return g;
+    }
+    
+    @Test
+    public void testTopRankedWithTies() {
+    	BridgeFinder finder = new BridgeFinder(sample());
+    	assertEquals(Arrays.asList("y", "z", "v", "x"), finder.top("a", "b", 10));
+    	assertEquals(Arrays.asList("y", "z"), finder.top("a", "b", 2));
+    	assertEquals("y", finder.best("a", "b"));
+    }
+    
+    @Test
+    public void testNoBridge() {
+    	BridgeFinder finder = new BridgeFinder(sample());
+    	assertEquals(Collections.emptyList(), finder.top("b", "a", 3));
+    	assertEquals(Collections.emptyList(), finder.top("lonely", "b", 3));
+    	assertEquals(Collections.emptyList(), finder.top("unknown", "b", 3));
+    	assertNull(finder.best("a", "unknown"));
+    }
+    
+    @Test
+    public void testWalkInEdges() {
+    	// b has fewer in-edges than a has out-edges
+    	Graph<String> g = sample();
+    	for (int i = 0; i < 20; i++)
+    		g.set("a", "extra" + i, 100);
+    	BridgeFinder finder = new BridgeFinder(FrozenGraph.of(g));
+    	assertEquals(Arrays.asList("y", "z", "v"), finder.top("a", "b", 3));
+    }
+    
+    @Test
+    public void testRandomGraphs() {
+    	Random random = new Random(6005);
+    	for (int trial = 0; trial < 20; trial++) {
+    		Graph<String> g = new ConcreteEdgesGraph<>();
+    		int n = 5 + random.nextInt(30);
+    		for (int e = 0; e < n * 4; e++) {
+    			String s = "w" + random.nextInt(n), t = "w" + random.nextInt(n);
+    			if (!s.equals(t))
+    				g.set(s, t, 1 + random.nextInt(4));
+    		}
+    		BridgeFinder finder = new BridgeFinder(FrozenGraph.of(g));
+    		for (String a: g.vertices())
+    			for (String b: g.vertices())
+    				for (int k: Arrays.asList(1, 2, 5))
+    					assertEquals(a + " " + b + " " + k,
+    							bruteForce(g, a, b, k), finder.top(a, b, k));
+    	}
+    }
+    
+    private static List<String> bruteForce(Graph<String> g, String a, String b, int k) {
+    	List<String> bridges = new ArrayList<>();
+    	for (String x: g.targets(a).keySet())
+    		if (g.targets(x).containsKey(b))
+    			bridges.add(x);
+    	bridges.sort((x, y) -> {
+    		int byScore = Integer.compare(score(g, a, y, b), score(g, a, x, b));
+    		return byScore != 0 ? byScore : x.compareTo(y);
+    	});
+    	return bridges.subList(0, Math.min(k, bridges.size()));
+    }
+    
+    private static int score(Graph<String> g, String a, String x, String b) {
+    	Map<String, Integer> out = g.targets(a);
+    	return out.get(x) + g.targets(x).get(b);
+    }
+    
+}
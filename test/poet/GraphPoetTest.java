@@ -6,8 +6,23 @@ package poet;
 import static org.junit.Assert.*;
 import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 /**
  * Tests for GraphPoet.
@@ -15,6 +30,9 @@ import org.junit.Test;
 public class GraphPoetTest {
     
     public final String pangram = "The quick brown fox jumped over the lazy dog";
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
 	/*
      * Partitions for constructor:
      * Throw IOException if it can't read the corpus file
@@ -100,4 +118,352 @@ public class GraphPoetTest {
     			expected.toLowerCase(), gp.poem(pangram).toLowerCase());
     }
     
+    /*
+     * Covers:
+     * input words are matched against the corpus case-insensitively
+     * repeated lookups of the same word pairs give the same poem
+     */
+    @Test
+    public void testGraphPoetRepeatedInput() throws Exception {
+    	GraphPoet gp = new GraphPoet(new File("src/poet/mugar-omni-theater.txt"));
+    	String expected = "Test of the system.";
+    	assertEquals("Should bridge words regardless of input case",
+    			expected, gp.poem("Test the system."));
+    	assertEquals("Should give the same poem for the same input",
+    			expected, gp.poem("Test the system."));
+    	assertEquals("Should reuse bridges for repeated word pairs",
+    			"TEST of THE system. test of the system.",
+    			gp.poem("TEST THE system. test the system."));
+    }
+    
+    /*
+     * Bridge cache counters, partitions:
+     * cache large enough for every pair, repeated input (misses then hits)
+     * cache smaller than the number of pairs (evictions)
+     * caching disabled (every lookup misses, nothing stored)
+     */
+    @Test
+    public void testBridgeCacheHitsAndMisses() throws Exception {
+    	GraphPoet gp = new GraphPoet(new File("src/poet/mugar-omni-theater.txt"));
+    	gp.poem("Test the system.");
+    	CacheStats stats = gp.bridgeCacheStats();
+    	assertEquals("expected a miss per word pair", 2, stats.misses());
+    	assertEquals("expected no hits yet", 0, stats.hits());
+    	
+    	gp.poem("Test the system.");
+    	stats = gp.bridgeCacheStats();
+    	assertEquals("expected a hit per repeated word pair", 2, stats.hits());
+    	assertEquals("expected no further misses", 2, stats.misses());
+    	assertEquals("expected both pairs cached", 2, stats.size());
+    	assertEquals("expected no evictions", 0, stats.evictions());
+    }
+    
+    @Test
+    public void testBridgeCacheEviction() throws Exception {
+    	GraphPoet gp = new GraphPoet(new File("src/poet/mugar-omni-theater.txt"), 1);
+    	assertEquals("Test of the system.", gp.poem("Test the system."));
+    	CacheStats stats = gp.bridgeCacheStats();
+    	assertEquals("expected one pair cached", 1, stats.size());
+    	assertEquals("expected one pair evicted", 1, stats.evictions());
+    }
+    
+    @Test
+    public void testBridgeCacheDisabled() throws Exception {
+    	GraphPoet gp = new GraphPoet(new File("src/poet/mugar-omni-theater.txt"), 0);
+    	gp.poem("Test the system.");
+    	assertEquals("Test of the system.", gp.poem("Test the system."));
+    	CacheStats stats = gp.bridgeCacheStats();
+    	assertEquals("expected every lookup to miss", 4, stats.misses());
+    	assertEquals("expected nothing cached", 0, stats.size());
+    }
+    
+    /*
+     * Builder, partitions:
+     * corpus from a Reader, a Path, a File
+     * corpus with leading and trailing whitespace
+     */
+    @Test
+    public void testBuilderMatchesFileConstructor() throws Exception {
+    	String expected = new GraphPoet(new File("test/poet/multiple_paths.txt")).poem(pangram);
+    	GraphPoet.Builder builder = GraphPoet.builder();
+    	assertEquals(expected, builder.build(new File("test/poet/multiple_paths.txt")).poem(pangram));
+    	assertEquals(expected, builder.build(Paths.get("test/poet/multiple_paths.txt")).poem(pangram));
+    }
+    
+    @Test
+    public void testBuilderFromReader() throws Exception {
+    	GraphPoet gp = GraphPoet.builder().build(new StringReader(
+    			"\n  This is a test of the\nMugar Omni Theater sound system.  \n"));
+    	assertEquals("Test of the system.", gp.poem("Test the system."));
+    }
+    
+    @Test(expected=IOException.class)
+    public void testBuilderNonexistentCorpus() throws IOException {
+    	GraphPoet.builder().build(Paths.get("does/not/exist"));
+    }
+    
+    @Test
+    public void testBuilderMemoryMapped() throws Exception {
+    	GraphPoet.Builder builder = GraphPoet.builder().charset(StandardCharsets.UTF_8);
+    	for (String corpus: Arrays.asList("multiple_paths.txt", "three_paths.txt")) {
+    		File f = new File("test/poet/" + corpus);
+    		assertEquals("Memory-mapped corpus should give the same poem",
+    				builder.memoryMapped(false).build(f).poem(pangram),
+    				builder.memoryMapped(true).build(f).poem(pangram));
+    	}
+    }
+    
+    @Test
+    public void testBuilderParallel() throws Exception {
+    	GraphPoet.Builder builder = GraphPoet.builder().charset(StandardCharsets.UTF_8);
+    	for (String corpus: Arrays.asList("multiple_paths.txt", "three_paths.txt")) {
+    		File f = new File("test/poet/" + corpus);
+    		assertEquals("Parallel build should give the same poem",
+    				builder.parallel(null).build(f).poem(pangram),
+    				builder.parallel(ForkJoinPool.commonPool()).chunkSize(7).build(f).poem(pangram));
+    	}
+    }
+    
+    @Test
+    public void testBuilderFrozen() throws Exception {
+    	GraphPoet.Builder builder = GraphPoet.builder();
+    	for (String corpus: Arrays.asList("multiple_paths.txt", "three_paths.txt")) {
+    		File f = new File("test/poet/" + corpus);
+    		assertEquals("Frozen graph should give the same poem",
+    				builder.frozen(false).build(f).poem(pangram),
+    				builder.frozen(true).build(f).poem(pangram));
+    	}
+    }
+    
+    @Test
+    public void testSaveAndLoad() throws Exception {
+    	for (String corpus: Arrays.asList("multiple_paths.txt", "three_paths.txt")) {
+    		GraphPoet poet = new GraphPoet(new File("test/poet/" + corpus));
+    		Path file = folder.newFile(corpus + ".graph").toPath();
+    		poet.save(file);
+    		assertEquals("Loaded graph should give the same poem",
+    				poet.poem(pangram), GraphPoet.builder().load(file).poem(pangram));
+    	}
+    }
+    
+    @Test
+    public void testAppend() throws Exception {
+    	GraphPoet poet = GraphPoet.builder().build(new StringReader("Hello there world foo bar"));
+    	assertEquals("Hello there world", poet.poem("Hello world"));
+    	assertEquals("foo bar", poet.poem("foo bar"));
+    	assertEquals(2, poet.bridgeCacheStats().size());
+    	
+    	poet.append(new StringReader("hello big world HELLO BIG WORLD"));
+    	assertEquals("Expected only the changed pair to be invalidated",
+    			1, poet.bridgeCacheStats().size());
+    	assertEquals("Hello big world", poet.poem("Hello world"));
+    	assertEquals("foo bar", poet.poem("foo bar"));
+    	assertEquals("Expected the unchanged pair to be cached",
+    			1, poet.bridgeCacheStats().hits());
+    }
+    
+    @Test
+    public void testAppendDoesNotJoinDocuments() throws Exception {
+    	GraphPoet poet = GraphPoet.builder().build(new StringReader("a"));
+    	poet.append(new StringReader("b c"));
+    	assertEquals("x a c", poet.poem("x a c"));
+    }
+    
+    @Test
+    public void testAppendNonexistentFile() throws Exception {
+    	GraphPoet poet = new GraphPoet(new File("test/poet/one_path.txt"));
+    	String before = poet.poem(pangram);
+    	try {
+    		poet.append(new File("does/not/exist"));
+    		fail("expected IOException");
+    	} catch (IOException e) { }
+    	assertEquals(before, poet.poem(pangram));
+    }
+    
+    private static List<String> manyInputs() {
+    	List<String> inputs = new ArrayList<>();
+    	for (int i = 0; i < 500; i++)
+    		inputs.add(i % 3 == 0 ? "The quick brown fox jumped over the lazy dog"
+    				: i % 3 == 1 ? "fox over dog " + i : "lazy brown quick");
+    	return inputs;
+    }
+    
+    @Test
+    public void testPoemsEmpty() throws Exception {
+    	GraphPoet poet = new GraphPoet(new File("test/poet/three_paths.txt"));
+    	assertEquals(Collections.emptyList(),
+    			poet.poems(Collections.<String>emptyList(), ForkJoinPool.commonPool()));
+    }
+    
+    @Test
+    public void testPoemsExecutor() throws Exception {
+    	GraphPoet poet = new GraphPoet(new File("test/poet/three_paths.txt"));
+    	List<String> inputs = manyInputs();
+    	List<String> expected = new ArrayList<>();
+    	for (String input: inputs)
+    		expected.add(poet.poem(input));
+    	
+    	assertEquals(expected, poet.poems(inputs, ForkJoinPool.commonPool()));
+    	ExecutorService executor = Executors.newFixedThreadPool(4);
+    	try {
+    		assertEquals(expected, poet.poems(inputs, executor));
+    	} finally {
+    		executor.shutdown();
+    	}
+    }
+    
+    @Test
+    public void testPoemsStream() throws Exception {
+    	GraphPoet poet = new GraphPoet(new File("test/poet/three_paths.txt"), 0);
+    	List<String> inputs = manyInputs();
+    	List<String> expected = new ArrayList<>();
+    	for (String input: inputs)
+    		expected.add(poet.poem(input));
+    	
+    	assertEquals(expected,
+    			poet.poems(inputs.parallelStream()).collect(Collectors.toList()));
+    }
+    
+    @Test
+    public void testPoemLongInput() throws Exception {
+    	GraphPoet poet = GraphPoet.builder().build(new StringReader("a b c"));
+    	StringBuilder input = new StringBuilder(), expected = new StringBuilder();
+    	for (int i = 0; i < 50000; i++) {
+    		input.append(" A\tc");
+    		expected.append(" A b c");
+    	}
+    	assertEquals(expected.toString().trim(), poet.poem(input.toString()));
+    }
+    
+    @Test
+    public void testPoemSurroundingWhitespace() throws Exception {
+    	GraphPoet poet = GraphPoet.builder().build(new StringReader("a b c"));
+    	assertEquals("a b c", poet.poem("  a \n c\t "));
+    	assertEquals("", poet.poem(""));
+    }
+    
+    @Test
+    public void testPoemStreamMatchesPoem() throws Exception {
+    	GraphPoet poet = new GraphPoet(new File("test/poet/three_paths.txt"));
+    	for (String input: Arrays.asList("", " \n ", "one", pangram,
+    			"  a \n c\t ", "Seek to find what was lost.")) {
+    		StringBuilder out = new StringBuilder();
+    		poet.poem(new StringReader(input), out);
+    		assertEquals(poet.poem(input), out.toString());
+    	}
+    }
+    
+    @Test
+    public void testPoemStreamWritesBeforeInputEnds() throws Exception {
+    	GraphPoet poet = GraphPoet.builder().build(new StringReader("a b c"));
+    	StringBuilder out = new StringBuilder();
+    	String input = "a c a c a c";
+    	List<Integer> writtenAtRead = new ArrayList<>();
+    	Reader slow = new Reader() {
+    		private int position = 0;
+    		@Override public int read(char[] cbuf, int off, int len) {
+    			writtenAtRead.add(out.length());
+    			if (position == input.length())
+    				return -1;
+    			cbuf[off] = input.charAt(position++);
+    			return 1;
+    		}
+    		@Override public void close() {
+    		}
+    	};
+    	poet.poem(slow, out);
+    	assertEquals("a b c a b c a b c", out.toString());
+    	assertEquals("expected \"a b c\" written once \"a c\" is read",
+    			Integer.valueOf(5), writtenAtRead.get(4));
+    }
+    
+    @Test
+    public void testTopBridges() throws Exception {
+    	GraphPoet poet = GraphPoet.builder().build(new StringReader(
+    			"a x b a y b a y b a z b a z b A Z B a w b a w b"));
+    	assertEquals("Expected ties in String order",
+    			Arrays.asList("z", "w", "y", "x"), poet.topBridges("A", "b", 5));
+    	assertEquals(Arrays.asList("z"), poet.topBridges("a", "B", 1));
+    	assertEquals("Expected poem() to insert the best bridge",
+    			"a z b", poet.poem("a b"));
+    	assertEquals(Collections.emptyList(), poet.topBridges("b", "a", 5));
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testTopBridgesNonPositiveK() throws Exception {
+    	GraphPoet poet = GraphPoet.builder().build(new StringReader("a x b"));
+    	poet.topBridges("a", "b", 0);
+    }
+    
+    @Test
+    public void testMaxHops() throws Exception {
+    	// from "to": "go" 2/5 of the time, then "now" always; "be" 3/5
+    	// of the time, then "home" a third of the time
+    	String corpus = "to go now home to go now home to be home to be "
+    			+ "here to be there";
+    	GraphPoet poet = GraphPoet.builder().build(new StringReader(corpus));
+    	assertEquals("To be home", poet.poem("To home"));
+    	GraphPoet multiHop = GraphPoet.builder().maxHops(3)
+    			.build(new StringReader(corpus));
+    	assertEquals("To go now home", multiHop.poem("To home"));
+    	assertEquals("expected no bridge without a path", "there here",
+    			multiHop.poem("there here"));
+    }
+    
+    @Test
+    public void testMaxHopsAppendInvalidatesCache() throws Exception {
+    	// appending only changes edges inside the cached path a x y b, and
+    	// the weight out of x, which makes a p q b the likeliest path
+    	String corpus = "a x y b a x y b a p q b";
+    	GraphPoet poet = GraphPoet.builder().maxHops(3)
+    			.build(new StringReader(corpus));
+    	assertEquals("a x y b", poet.poem("a b"));
+    	GraphPoet uncached = GraphPoet.builder().maxHops(3).bridgeCacheSize(0)
+    			.build(new StringReader(corpus));
+    	for (GraphPoet p: Arrays.asList(poet, uncached))
+    		p.append(new StringReader("x w x w x w x w x w"));
+    	assertEquals("a p q b", uncached.poem("a b"));
+    	assertEquals("expected no stale bridge", "a p q b", poet.poem("a b"));
+    }
+    
+    @Test
+    public void testMaxHopsPathThroughFirstWord() throws Exception {
+    	// the only path of two or more edges from "a" to "c" returns to "a"
+    	GraphPoet poet = GraphPoet.builder().maxHops(3)
+    			.build(new StringReader("a b a c"));
+    	assertEquals("a b a c", poet.poem("a c"));
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testMaxHopsTooSmall() {
+    	GraphPoet.builder().maxHops(1);
+    }
+    
+    @Test
+    public void testGenerate() throws Exception {
+    	GraphPoet poet = new GraphPoet(new File("test/poet/three_paths.txt"));
+    	String text = poet.generate(50, 6005);
+    	assertEquals(50, text.split(" ").length);
+    	assertEquals("Expected the same seed to give the same text",
+    			text, poet.generate(50, 6005));
+    	assertEquals("", poet.generate(0, 6005));
+    }
+    
+    @Test
+    public void testGenerateAfterAppend() throws Exception {
+    	GraphPoet poet = GraphPoet.builder().build(new StringReader("a x a"));
+    	String text = poet.generate(3, 1);
+    	assertTrue("Expected a walk between a and x, was " + text,
+    			text.equals("a x a") || text.equals("x a x"));
+    	poet.append(new StringReader("x b x"));
+    	assertTrue("Expected the appended word to be generated",
+    			poet.generate(100, 1).contains("b"));
+    }
+    
+    @Test
+    public void testGenerateEmptyCorpus() throws Exception {
+    	GraphPoet poet = new GraphPoet(new File("test/poet/empty.txt"));
+    	assertEquals("", poet.generate(10, 1));
+    }
+    
 }
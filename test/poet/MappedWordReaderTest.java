@@ -0,0 +1,117 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests for MappedWordReader and ByteVocabulary.
+ */
+public class MappedWordReaderTest {
+    
+    /*
+     * Partitions for next():
+     * file: empty, whitespace only, words with mixed case and non-ASCII
+     * window size: larger than the file, smaller than a word
+     * range: whole file, split at whitespace, split inside a word
+     * 
+     * Partitions for ByteVocabulary.lookup():
+     * new bytes, repeated bytes, different case of a known word
+     */
+    
+    private static final String TEXT =
+    		"  Hello, HELLO, hello,\tgoodbye!\n \u00dcn\u00efc\u00f6d\u00e9 \u00fcn\u00efc\u00f6d\u00e9\r\n\u000Bend ";
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    private static Path write(String text) throws IOException {
+    	File f = File.createTempFile("corpus", ".txt");
+    	f.deleteOnExit();
+    	Files.write(f.toPath(), text.getBytes(StandardCharsets.UTF_8));
+    	return f.toPath();
+    }
+    
+    private static List<String> readAll(Path file, long[] splits, int windowSize)
+    		throws IOException {
+    	List<String> words = new ArrayList<>();
+    	ByteVocabulary vocabulary = new ByteVocabulary();
+    	try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+    		for (int i = 0; i + 1 < splits.length; i++) {
+    			MappedWordReader reader = new MappedWordReader(channel,
+    					splits[i], splits[i + 1], windowSize, vocabulary);
+    			String w;
+    			while ((w = reader.next()) != null)
+    				words.add(w);
+    		}
+    	}
+    	return words;
+    }
+    
+    private static List<String> expected(String text) throws IOException {
+    	List<String> words = new ArrayList<>();
+    	WordReader reader = new WordReader(new StringReader(text));
+    	String w;
+    	while ((w = reader.next()) != null)
+    		words.add(w.toLowerCase());
+    	return words;
+    }
+    
+    @Test
+    public void testEmptyAndWhitespaceOnly() throws IOException {
+    	assertEquals(new ArrayList<String>(), readAll(write(""), new long[] { 0, 0 }, 16));
+    	assertEquals(new ArrayList<String>(), readAll(write(" \n\t "), new long[] { 0, 4 }, 16));
+    }
+    
+    @Test
+    public void testWholeFile() throws IOException {
+    	Path file = write(TEXT);
+    	long size = Files.size(file);
+    	assertEquals(expected(TEXT), readAll(file, new long[] { 0, size }, 1 << 20));
+    }
+    
+    @Test
+    public void testWordsAcrossWindows() throws IOException {
+    	Path file = write(TEXT);
+    	long size = Files.size(file);
+    	for (int window = 1; window < 8; window++)
+    		assertEquals("window size " + window, expected(TEXT),
+    				readAll(file, new long[] { 0, size }, window));
+    }
+    
+    @Test
+    public void testEveryRangeSplit() throws IOException {
+    	Path file = write(TEXT);
+    	long size = Files.size(file);
+    	for (long split = 0; split <= size; split++)
+    		assertEquals("split at " + split, expected(TEXT),
+    				readAll(file, new long[] { 0, split, size }, 5));
+    }
+    
+    @Test
+    public void testVocabularySharesInstances() throws IOException {
+    	Path file = write("Hello hello HELLO hello");
+    	List<String> words = readAll(file, new long[] { 0, Files.size(file) }, 64);
+    	assertEquals(Arrays.asList("hello", "hello", "hello", "hello"), words);
+    	for (String w: words)
+    		assertSame("expected one instance per lower-case word", words.get(0), w);
+    }
+    
+}
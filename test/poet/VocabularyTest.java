@@ -0,0 +1,93 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests for Vocabulary.
+ */
+public class VocabularyTest {
+    
+    /*
+     * Partitions for get():
+     * vocabulary: empty, one word, many words
+     * word: in the vocabulary, not in it, same characters in another case
+     * characters: ASCII, non-ASCII
+     * given as: String, range of a larger CharSequence
+     * 
+     * Partitions for the constructor:
+     * words: lower case, not lower case
+     */
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    @Test
+    public void testEmpty() {
+    	Vocabulary vocabulary = new Vocabulary(Collections.<String>emptyList());
+    	assertEquals(0, vocabulary.size());
+    	assertNull(vocabulary.get("word"));
+    	assertNull(vocabulary.get(""));
+    }
+    
+    @Test
+    public void testGetReturnsSharedInstance() {
+    	String hello = new String("hello,");
+    	Vocabulary vocabulary = new Vocabulary(Arrays.asList(hello, "goodbye!"));
+    	assertEquals(2, vocabulary.size());
+    	assertSame(hello, vocabulary.get(new String("hello,")));
+    	assertSame(hello, vocabulary.get("HeLLo,"));
+    	assertNull(vocabulary.get("hello"));
+    	assertNull(vocabulary.get("hello,,"));
+    }
+    
+    @Test
+    public void testGetRange() {
+    	Vocabulary vocabulary = new Vocabulary(Arrays.asList("test", "the"));
+    	StringBuilder text = new StringBuilder("Test THE system.");
+    	assertEquals("test", vocabulary.get(text, 0, 4));
+    	assertEquals("the", vocabulary.get(text, 5, 8));
+    	assertNull(vocabulary.get(text, 9, 16));
+    	assertNull(vocabulary.get(text, 0, 3));
+    }
+    
+    @Test
+    public void testNonAscii() {
+    	Vocabulary vocabulary = new Vocabulary(Arrays.asList("\u00fcn\u00efc\u00f6d\u00e9", "caf\u00e9"));
+    	assertEquals("\u00fcn\u00efc\u00f6d\u00e9", vocabulary.get("\u00dcN\u00cfC\u00d6D\u00c9"));
+    	assertEquals("caf\u00e9", vocabulary.get("Caf\u00e9"));
+    	assertNull(vocabulary.get("cafe"));
+    }
+    
+    @Test
+    public void testLeavesOutWordsNotInLowerCase() {
+    	Vocabulary vocabulary = new Vocabulary(Arrays.asList("lower", "Upper"));
+    	assertEquals(1, vocabulary.size());
+    	assertNull(vocabulary.get("Upper"));
+    	assertNull(vocabulary.get("upper"));
+    }
+    
+    @Test
+    public void testManyWords() {
+    	List<String> words = new ArrayList<>();
+    	for (int i = 0; i < 5000; i++)
+    		words.add("w" + i);
+    	Vocabulary vocabulary = new Vocabulary(words); // checkRep with -ea
+    	assertEquals(words.size(), vocabulary.size());
+    	for (String word: words)
+    		assertSame(word, vocabulary.get(word.toUpperCase()));
+    	assertNull(vocabulary.get("w5000"));
+    }
+    
+}
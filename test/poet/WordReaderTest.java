@@ -0,0 +1,71 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests for WordReader.
+ */
+public class WordReaderTest {
+    
+    /*
+     * Partitions for next():
+     * input: empty, whitespace only, one word, many words
+     * whitespace: single spaces, runs of mixed whitespace, leading/trailing
+     * word length: short, longer than the internal buffer
+     */
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    private static List<String> readAll(String text) throws IOException {
+    	List<String> words = new ArrayList<>();
+    	try (WordReader reader = new WordReader(new StringReader(text))) {
+    		String w;
+    		while ((w = reader.next()) != null)
+    			words.add(w);
+    	}
+    	return words;
+    }
+    
+    @Test
+    public void testEmptyAndWhitespaceOnly() throws IOException {
+    	assertEquals(Collections.emptyList(), readAll(""));
+    	assertEquals(Collections.emptyList(), readAll(" \t\r\n\f\u000B "));
+    }
+    
+    @Test
+    public void testOneWord() throws IOException {
+    	assertEquals(Arrays.asList("Hello,"), readAll("Hello,"));
+    }
+    
+    @Test
+    public void testMixedWhitespace() throws IOException {
+    	assertEquals(Arrays.asList("This", "is", "a", "TEST."),
+    			readAll("  This is\n\ta \r\n  TEST.\n"));
+    }
+    
+    @Test
+    public void testWordLongerThanBuffer() throws IOException {
+    	StringBuilder sb = new StringBuilder();
+    	for (int i = 0; i < 20000; i++)
+    		sb.append((char) ('a' + i % 26));
+    	String longWord = sb.toString();
+    	assertEquals(Arrays.asList("x", longWord, "y"),
+    			readAll("x " + longWord + " y"));
+    }
+    
+}
@@ -0,0 +1,114 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for WordScanner.
+ */
+public class WordScannerTest {
+    
+    /*
+     * Partitions for next(), word(), start(), end():
+     * input: empty, whitespace only, one word, many words
+     * whitespace: single spaces, runs of mixed whitespace, leading/trailing
+     * scanner: new, reset after scanning other text
+     * 
+     * Partitions for lowerCaseWord(), toLowerCase():
+     * word: lower-case ASCII, upper-case ASCII, non-ASCII lower and upper case
+     * 
+     * Random inputs are checked against String.split("\\s+").
+     */
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    private static List<String> scanAll(WordScanner scanner, String text) {
+    	scanner.reset(text);
+    	List<String> words = new ArrayList<>();
+    	while (scanner.next())
+    		words.add(scanner.word());
+    	return words;
+    }
+    
+    @Test
+    public void testEmptyAndWhitespaceOnly() {
+    	WordScanner scanner = new WordScanner();
+    	assertFalse(scanner.next());
+    	assertEquals(Collections.emptyList(), scanAll(scanner, ""));
+    	assertEquals(Collections.emptyList(), scanAll(scanner, " \t\r\n\f\u000B "));
+    }
+    
+    @Test
+    public void testMixedWhitespace() {
+    	assertEquals(Arrays.asList("This", "is", "a", "TEST."),
+    			scanAll(new WordScanner(), "  This is\n\ta \r\n  TEST.\n"));
+    }
+    
+    @Test
+    public void testIndices() {
+    	WordScanner scanner = new WordScanner(" ab  c");
+    	assertTrue(scanner.next());
+    	assertEquals(1, scanner.start());
+    	assertEquals(3, scanner.end());
+    	assertTrue(scanner.next());
+    	assertEquals(5, scanner.start());
+    	assertEquals(6, scanner.end());
+    	assertFalse(scanner.next());
+    	assertFalse("expected to stay at the end", scanner.next());
+    }
+    
+    @Test
+    public void testReset() {
+    	WordScanner scanner = new WordScanner("one two three");
+    	assertTrue(scanner.next());
+    	assertEquals("one", scanner.word());
+    	assertEquals("expected reset part way through to scan from the start",
+    			Arrays.asList("four", "five"), scanAll(scanner, "four five"));
+    }
+    
+    @Test
+    public void testLowerCase() {
+    	WordScanner scanner = new WordScanner("hello, HeLLo \u00C9T\u00C9 caf\u00E9");
+    	List<String> lower = new ArrayList<>();
+    	while (scanner.next())
+    		lower.add(scanner.lowerCaseWord());
+    	assertEquals(Arrays.asList("hello,", "hello", "\u00E9t\u00E9", "caf\u00E9"), lower);
+    	
+    	String word = "already";
+    	assertSame(word, WordScanner.toLowerCase(word));
+    	assertEquals("mixed", WordScanner.toLowerCase("MiXeD"));
+    	assertEquals("\u00E9t\u00E9", WordScanner.toLowerCase("\u00C9T\u00C9"));
+    }
+    
+    @Test
+    public void testMatchesRegexSplit() {
+    	String alphabet = "aB. \t\n\r";
+    	Random random = new Random(6005);
+    	WordScanner scanner = new WordScanner();
+    	for (int trial = 0; trial < 200; trial++) {
+    		StringBuilder sb = new StringBuilder();
+    		int length = random.nextInt(30);
+    		for (int i = 0; i < length; i++)
+    			sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+    		List<String> expected = new ArrayList<>();
+    		for (String w: sb.toString().split("\\s+"))
+    			if (!w.isEmpty())
+    				expected.add(w);
+    		assertEquals(sb.toString(), expected, scanAll(scanner, sb.toString()));
+    	}
+    }
+    
+}